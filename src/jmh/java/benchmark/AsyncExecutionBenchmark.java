@@ -0,0 +1,84 @@
+package benchmark;
+
+import jakarta.ws.rs.core.Response;
+import org.example.persistence.PersistenceConfig;
+import org.example.rest.AsyncExecutor;
+import org.example.rest.ResponseCache;
+import org.example.rest.WarehouseResource;
+import org.example.service.WarehouseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of durable writes ({@code fsyncBatch = 1}) at high concurrency: a burst of {@value #REQUESTS}
+ * requests served by a fixed pool of worker threads, as in the blocking model, against the virtual-thread
+ * {@link AsyncExecutor}. Throughput is reported per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncExecutionBenchmark {
+    static final int REQUESTS = 1000;
+
+    @Param({"blocking", "async"})
+    String mode;
+
+    @Param({"16"})
+    int workerThreads;
+
+    private Path directory;
+    private WarehouseService service;
+    private WarehouseResource resource;
+    private ExecutorService workers;
+    private AsyncExecutor async;
+    private final AtomicLong nextId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("warehouse-bench");
+        service = new WarehouseService();
+        service.enablePersistence(new PersistenceConfig(directory, 1, 0));
+        resource = new WarehouseResource(service, new ResponseCache());
+        workers = Executors.newFixedThreadPool(workerThreads);
+        async = new AsyncExecutor(REQUESTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        workers.close();
+        async.close();
+        service.close();
+        PersistenceBenchmark.delete(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int burst() throws Exception {
+        List<Future<Response>> responses = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            long id = nextId.getAndIncrement();
+            if (mode.equals("async")) {
+                responses.add(async.submit(() -> resource.addProduct(BenchmarkProducts.product(id))).toCompletableFuture());
+            } else {
+                responses.add(workers.submit(() -> resource.addProduct(BenchmarkProducts.product(id))));
+            }
+        }
+        int created = 0;
+        for (Future<Response> response : responses) {
+            if (response.get().getStatus() == 201) {
+                created++;
+            }
+        }
+        return created;
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.service.WarehouseService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic product data shared by the benchmarks.
+ */
+final class BenchmarkProducts {
+    static final LocalDate TODAY = LocalDate.now();
+    private static final Category[] CATEGORIES = Category.values();
+    private static final String[] WORDS = {"Classic", "Slim", "Relaxed", "Vintage", "Denim", "Cotton", "Zip", "Oversized"};
+
+    private BenchmarkProducts() {
+    }
+
+    static String id(long i) {
+        return String.format("%09d", i);
+    }
+
+    static Product product(long i) {
+        int n = (int) (i % 100_000);
+        return new Product(
+                id(i),
+                WORDS[n % WORDS.length] + " " + WORDS[(n / WORDS.length) % WORDS.length] + " " + n,
+                CATEGORIES[n % CATEGORIES.length],
+                n % 10 + 1,
+                TODAY.minusDays(n % 730),
+                TODAY.minusDays(n % 730 / 2)
+        );
+    }
+
+    static List<Product> products(int size) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(product(i));
+        }
+        return products;
+    }
+
+    static WarehouseService service(int size) {
+        WarehouseService service = new WarehouseService();
+        service.addProducts(products(size));
+        return service;
+    }
+}
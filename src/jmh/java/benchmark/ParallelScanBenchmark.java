@@ -0,0 +1,61 @@
+package benchmark;
+
+import org.example.entities.Product;
+import org.example.service.ProductQuery;
+import org.example.service.QueryResult;
+import org.example.service.StorageMode;
+import org.example.service.WarehouseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunked scans submitted to a ForkJoinPool of {@code parallelism} workers, to show how they scale with cores.
+ * The scans fork into the pool they are submitted to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ParallelScanBenchmark {
+    @Param({"1000000"})
+    int size;
+
+    @Param({"OBJECTS", "COLUMNAR"})
+    StorageMode mode;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int parallelism;
+
+    private WarehouseService service;
+    private ForkJoinPool pool;
+    private ProductQuery rangeQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new WarehouseService(mode);
+        service.addProducts(BenchmarkProducts.products(size));
+        pool = new ForkJoinPool(parallelism);
+        rangeQuery = new ProductQuery(null, 4, 6, BenchmarkProducts.TODAY.minusDays(400), BenchmarkProducts.TODAY.minusDays(300),
+                null, null, null, ProductQuery.Sort.RATING, true, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Product> modifiedProducts() {
+        return pool.submit(service::getModifiedProducts).join();
+    }
+
+    @Benchmark
+    public QueryResult queryRatingAndDateRange() {
+        return pool.submit(() -> service.query(rangeQuery)).join();
+    }
+}
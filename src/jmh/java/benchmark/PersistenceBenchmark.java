@@ -0,0 +1,58 @@
+package benchmark;
+
+import org.example.persistence.PersistenceConfig;
+import org.example.service.WarehouseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput with the write-ahead log enabled, per fsync policy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class PersistenceBenchmark {
+    @Param({"0", "1", "64"})
+    int fsyncBatch;
+
+    private Path directory;
+    private WarehouseService service;
+    private final AtomicLong nextId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("warehouse-bench");
+        service = new WarehouseService();
+        service.enablePersistence(new PersistenceConfig(directory, fsyncBatch, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.close();
+        delete(directory);
+    }
+
+    @Benchmark
+    public void addProduct() {
+        service.addProduct(BenchmarkProducts.product(nextId.getAndIncrement()));
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import org.example.persistence.PersistenceConfig;
+import org.example.service.WarehouseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup recovery time, replaying the whole write-ahead log or loading a snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RecoveryBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    @Param({"log", "snapshot"})
+    String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("warehouse-bench");
+        WarehouseService service = open();
+        service.addProducts(BenchmarkProducts.products(size));
+        if (source.equals("snapshot")) {
+            service.checkpoint();
+        }
+        service.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        PersistenceBenchmark.delete(directory);
+    }
+
+    @Benchmark
+    public int recover() {
+        WarehouseService service = open();
+        int recovered = service.getAllProducts().size();
+        service.close();
+        return recovered;
+    }
+
+    private WarehouseService open() {
+        WarehouseService service = new WarehouseService();
+        service.enablePersistence(new PersistenceConfig(directory, 0, 0));
+        return service;
+    }
+}
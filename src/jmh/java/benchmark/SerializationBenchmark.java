@@ -0,0 +1,77 @@
+package benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import org.example.entities.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (used by the tests) and JSON-B (used by WildFly) encoding and decoding of product lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    private static final Type PRODUCT_LIST = new ArrayList<Product>() {
+    }.getClass().getGenericSuperclass();
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private List<Product> products;
+    private ObjectMapper jackson;
+    private Jsonb jsonb;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        products = BenchmarkProducts.products(size);
+        jackson = new ObjectMapper().registerModule(new JavaTimeModule())
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        jsonb = JsonbBuilder.create();
+        json = jackson.writeValueAsBytes(products);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    public byte[] jacksonSerialize() throws IOException {
+        return jackson.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public List<Product> jacksonDeserialize() throws IOException {
+        return jackson.readValue(json, new TypeReference<>() {
+        });
+    }
+
+    @Benchmark
+    public byte[] jsonbSerialize() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        jsonb.toJson(products, PRODUCT_LIST, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public List<Product> jsonbDeserialize() {
+        return jsonb.fromJson(new ByteArrayInputStream(json), PRODUCT_LIST);
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.entities.Product;
+import org.example.persistence.MappedSnapshot;
+import org.example.persistence.SnapshotFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start from a JSON export compared with the memory-mapped columnar snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+    @Param({"100000", "1000000"})
+    int size;
+
+    private ObjectMapper mapper;
+    private Path json;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Product> products = BenchmarkProducts.products(size);
+        mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        json = Files.createTempFile("warehouse", ".json");
+        snapshot = Files.createTempFile("warehouse", ".bin");
+        mapper.writeValue(json.toFile(), products);
+        SnapshotFile.write(snapshot, products);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(json);
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public List<Product> jsonReload() throws IOException {
+        return mapper.readValue(json.toFile(), new TypeReference<>() {
+        });
+    }
+
+    @Benchmark
+    public long snapshotFullDecode() throws IOException {
+        return MappedSnapshot.map(snapshot).stream().filter(product -> product.rating() == 10).count();
+    }
+}
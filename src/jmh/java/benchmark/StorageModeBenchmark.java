@@ -0,0 +1,91 @@
+package benchmark;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.service.ProductQuery;
+import org.example.service.QueryResult;
+import org.example.service.StorageMode;
+import org.example.service.WarehouseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Object storage compared with the columnar storage mode: heap retained per product, and filtered scans, which
+ * the object mode answers from its indexes and the columnar mode from its primitive columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class StorageModeBenchmark {
+    @Param({"1000000"})
+    int size;
+
+    @Param({"OBJECTS", "COLUMNAR"})
+    StorageMode mode;
+
+    private WarehouseService service;
+    private ProductQuery rangeQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new WarehouseService(mode);
+        service.addProducts(BenchmarkProducts.products(size));
+        rangeQuery = new ProductQuery(null, 4, 6, BenchmarkProducts.TODAY.minusDays(400), BenchmarkProducts.TODAY.minusDays(300),
+                null, null, null, ProductQuery.Sort.RATING, true, 20);
+    }
+
+    /**
+     * Reported as the {@code bytesPerProduct} secondary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerProduct;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerProduct = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public WarehouseService heapPerProduct(Footprint footprint) {
+        long before = usedHeap();
+        WarehouseService loaded = new WarehouseService(mode);
+        loaded.addProducts(BenchmarkProducts.products(size));
+        footprint.bytesPerProduct = (usedHeap() - before) / size;
+        return loaded;
+    }
+
+    @Benchmark
+    public QueryResult queryRatingAndDateRange() {
+        return service.query(rangeQuery);
+    }
+
+    @Benchmark
+    public int productsInCategory() {
+        return service.getProductsByCategory(Category.JEANS).size();
+    }
+
+    @Benchmark
+    public List<Product> maxRatedLastMonth() {
+        return service.getMaxRatedProductsLastMonth();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import jakarta.ws.rs.core.Response;
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.exceptionmapper.ConstraintViolationExceptionHandler;
+import org.example.validation.ProductValidator;
+import org.jboss.resteasy.core.providerfactory.ResteasyProviderFactoryImpl;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking valid and invalid products with the hand-written fast path compared with Bean Validation, and mapping
+ * a violation to its error response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+    private final Product valid = new Product("1", "Classic Slim 1", Category.JEANS, 7, BenchmarkProducts.TODAY, BenchmarkProducts.TODAY);
+    private final Product invalid = new Product("1", " ", Category.JEANS, 11, BenchmarkProducts.TODAY, BenchmarkProducts.TODAY);
+
+    private ValidatorFactory factory;
+    private Validator beanValidator;
+    private ProductValidator validator;
+    private ConstraintViolationExceptionHandler handler;
+    private ConstraintViolationException violation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // the mapper builds a Response, which needs a JAX-RS runtime outside a container
+        ResteasyProviderFactory.setInstance(new ResteasyProviderFactoryImpl());
+        factory = Validation.buildDefaultValidatorFactory();
+        beanValidator = factory.getValidator();
+        validator = new ProductValidator();
+        handler = new ConstraintViolationExceptionHandler();
+        violation = new ConstraintViolationException(beanValidator.validate(invalid));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Product>> beanValidationValid() {
+        return beanValidator.validate(valid);
+    }
+
+    @Benchmark
+    public boolean fastPathValid() {
+        return validator.isValid(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Product>> beanValidationInvalid() {
+        return beanValidator.validate(invalid);
+    }
+
+    /**
+     * What an invalid request costs: the fast path rejects it and the full validator reports why.
+     */
+    @Benchmark
+    public Set<ConstraintViolation<Product>> fastPathInvalid() {
+        return validator.isValid(invalid) ? Set.of() : validator.violations(invalid);
+    }
+
+    @Benchmark
+    public Response mapViolation() {
+        return handler.toResponse(violation);
+    }
+}
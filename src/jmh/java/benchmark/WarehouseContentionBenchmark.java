@@ -0,0 +1,66 @@
+package benchmark;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.service.WarehouseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writers contending with each other and with readers on a shared catalogue.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarehouseContentionBenchmark {
+    private static final int HOT_IDS = 16;
+
+    @Param({"1000", "100000"})
+    int size;
+
+    private WarehouseService service;
+    private final AtomicLong nextId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkProducts.service(size);
+        nextId.set(size);
+    }
+
+    @Benchmark
+    @Group("hotModify")
+    @GroupThreads(4)
+    public void modifyHotProducts() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        service.modifyProduct(BenchmarkProducts.id(random.nextInt(HOT_IDS)), "Modified", Category.JEANS, random.nextInt(10) + 1);
+    }
+
+    @Benchmark
+    @Group("writeRead")
+    @GroupThreads(2)
+    public void addProduct() {
+        service.addProduct(BenchmarkProducts.product(nextId.getAndIncrement()));
+    }
+
+    @Benchmark
+    @Group("writeRead")
+    @GroupThreads(2)
+    public void modifyProduct() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        service.modifyProduct(BenchmarkProducts.id(random.nextInt(size)), "Modified", Category.SHIRT, random.nextInt(10) + 1);
+    }
+
+    @Benchmark
+    @Group("writeRead")
+    @GroupThreads(4)
+    public Optional<Product> getProductById() {
+        return service.getProductById(BenchmarkProducts.id(ThreadLocalRandom.current().nextInt(size)));
+    }
+}
@@ -0,0 +1,158 @@
+package benchmark;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.service.BatchResult;
+import org.example.service.DailyCount;
+import org.example.service.ProductQuery;
+import org.example.service.QueryResult;
+import org.example.service.RatingCount;
+import org.example.service.WarehouseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-threaded cost of every public {@link WarehouseService} operation by catalogue size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarehouseServiceBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    int size;
+
+    private WarehouseService service;
+    private final AtomicLong nextId = new AtomicLong();
+    private LocalDate lastWeek;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkProducts.service(size);
+        nextId.set(size);
+        lastWeek = BenchmarkProducts.TODAY.minusDays(7);
+    }
+
+    private String randomId() {
+        return BenchmarkProducts.id(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    private Category randomCategory() {
+        return Category.values()[ThreadLocalRandom.current().nextInt(Category.values().length)];
+    }
+
+    @Benchmark
+    public void addProduct() {
+        service.addProduct(BenchmarkProducts.product(nextId.getAndIncrement()));
+    }
+
+    @Benchmark
+    public BatchResult addProducts() {
+        long first = nextId.getAndAdd(5);
+        return service.addProducts(List.of(
+                BenchmarkProducts.product(first), BenchmarkProducts.product(first + 1), BenchmarkProducts.product(first + 2),
+                BenchmarkProducts.product(first + 3), BenchmarkProducts.product(first + 4)));
+    }
+
+    @Benchmark
+    public void modifyProduct() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        service.modifyProduct(randomId(), "Modified", randomCategory(), random.nextInt(10) + 1);
+    }
+
+    @Benchmark
+    public List<Product> getAllProducts() {
+        return service.getAllProducts();
+    }
+
+    @Benchmark
+    public List<Product> getProductsPage() {
+        return service.getProductsPage(randomId(), 100);
+    }
+
+    @Benchmark
+    public Optional<Product> getProductById() {
+        return service.getProductById(randomId());
+    }
+
+    @Benchmark
+    public List<Product> getProductsByCategory() {
+        return service.getProductsByCategory(randomCategory());
+    }
+
+    @Benchmark
+    public List<Product> searchProducts() {
+        return service.searchProducts("slim den", null, 0, 20);
+    }
+
+    @Benchmark
+    public List<Product> searchProductsByPrefix() {
+        return service.searchProducts("vintage 12", Category.JEANS, 5, 20);
+    }
+
+    @Benchmark
+    public QueryResult queryTopRatedInCategory() {
+        return service.query(new ProductQuery(randomCategory(), 8, null, lastWeek, null, null, null, null,
+                ProductQuery.Sort.RATING, true, 20));
+    }
+
+    @Benchmark
+    public QueryResult queryNamePrefixByName() {
+        return service.query(new ProductQuery(null, 5, null, null, null, null, null, "vintage d",
+                ProductQuery.Sort.NAME, false, 20));
+    }
+
+    @Benchmark
+    public List<Product> getProductsCreatedAfter() {
+        return service.getProductsCreatedAfter(lastWeek);
+    }
+
+    @Benchmark
+    public List<Product> getModifiedProducts() {
+        return service.getModifiedProducts();
+    }
+
+    @Benchmark
+    public List<Category> getNonEmptyCategories() {
+        return service.getNonEmptyCategories();
+    }
+
+    @Benchmark
+    public int getNumberProductsByCategory() {
+        return service.getNumberProductsByCategory(randomCategory());
+    }
+
+    @Benchmark
+    public Map<Character, Long> getProductStartingLetterMap() {
+        return service.getProductStartingLetterMap();
+    }
+
+    @Benchmark
+    public List<Product> getMaxRatedProductsLastMonth() {
+        return service.getMaxRatedProductsLastMonth();
+    }
+
+    @Benchmark
+    public List<Product> getTopRatedLastQuarter() {
+        return service.getTopRated(BenchmarkProducts.TODAY.minusDays(90), BenchmarkProducts.TODAY, Category.JEANS, 20);
+    }
+
+    @Benchmark
+    public List<RatingCount> getRatingHistogramLastYear() {
+        return service.getRatingHistogram(BenchmarkProducts.TODAY.minusDays(365), BenchmarkProducts.TODAY, null);
+    }
+
+    @Benchmark
+    public List<DailyCount> getCreatedPerDayLastYear() {
+        return service.getCreatedPerDay(BenchmarkProducts.TODAY.minusDays(365), BenchmarkProducts.TODAY, null);
+    }
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import org.example.entities.Category;
+import org.example.service.WarehouseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput of a read/write mix: reads are id and category lookups, writes are modifications.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class WarehouseWorkloadBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"50", "90", "99"})
+    int readPercent;
+
+    private WarehouseService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkProducts.service(size);
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String id = BenchmarkProducts.id(random.nextInt(size));
+        int operation = random.nextInt(100);
+        if (operation >= readPercent) {
+            service.modifyProduct(id, "Modified", Category.values()[random.nextInt(4)], random.nextInt(10) + 1);
+            return null;
+        }
+        if (operation % 10 == 0) {
+            return service.getProductsByCategory(Category.values()[random.nextInt(4)]).size();
+        }
+        return service.getProductById(id);
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.entities.Product;
+import org.example.rest.ProductBinaryProvider;
+import org.example.rest.WarehouseMediaType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON compared with the binary product format on encode and decode time, and on payload size per product.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+    private static final Type PRODUCT_LIST = new ArrayList<Product>() {
+    }.getClass().getGenericSuperclass();
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    @Param({"100", "10000"})
+    int size;
+
+    private List<Product> products;
+    private ObjectMapper jackson;
+    private ProductBinaryProvider binary;
+    private byte[] json;
+    private byte[] encoded;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public double bytesPerProduct;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        products = BenchmarkProducts.products(size);
+        jackson = new ObjectMapper().registerModule(new JavaTimeModule())
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        binary = new ProductBinaryProvider();
+        json = jackson.writeValueAsBytes(products);
+        encoded = writeBinary();
+    }
+
+    private byte[] writeBinary() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        binary.writeTo(products, List.class, PRODUCT_LIST, NO_ANNOTATIONS,
+                WarehouseMediaType.APPLICATION_PRODUCTS_TYPE, null, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] jsonEncode(Payload payload) throws IOException {
+        byte[] bytes = jackson.writeValueAsBytes(products);
+        payload.bytesPerProduct = (double) bytes.length / size;
+        return bytes;
+    }
+
+    @Benchmark
+    public List<Product> jsonDecode() throws IOException {
+        return jackson.readValue(json, new TypeReference<>() {
+        });
+    }
+
+    @Benchmark
+    public byte[] binaryEncode(Payload payload) throws IOException {
+        byte[] bytes = writeBinary();
+        payload.bytesPerProduct = (double) bytes.length / size;
+        return bytes;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<Product> binaryDecode() throws IOException {
+        return (List<Product>) binary.readFrom(Object.class, PRODUCT_LIST, NO_ANNOTATIONS,
+                WarehouseMediaType.APPLICATION_PRODUCTS_TYPE, null, new ByteArrayInputStream(encoded));
+    }
+}
@@ -0,0 +1,91 @@
+package benchmark;
+
+import org.example.entities.Category;
+import org.example.entities.ProductUpdate;
+import org.example.service.ProductStore;
+import org.example.service.VersionedProduct;
+import org.example.service.WarehouseService;
+import org.example.service.WritePipeline;
+import org.example.service.WritePipelineConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modifications applied one by one compared with the write pipeline at several batch sizes, spread over
+ * {@code ids} products so that small values coalesce heavily. Each pipelined invocation submits a window of
+ * modifications and waits for all of them, like a job that fires updates without waiting for each; scores are
+ * per modification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class WritePipelineBenchmark {
+    private static final int WINDOW = 64;
+
+    @Param({"100000"})
+    int size;
+
+    @Param({"16", "100000"})
+    int ids;
+
+    @Param({"1", "16", "256"})
+    int maxBatch;
+
+    @Param({"100"})
+    long lingerMicros;
+
+    private WarehouseService service;
+    private WritePipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkProducts.service(size);
+        pipeline = new WritePipeline(service, new WritePipelineConfig(true, 65_536, maxBatch, lingerMicros));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    private ProductUpdate update(ThreadLocalRandom random) {
+        return new ProductUpdate("Repriced", Category.JEANS, random.nextInt(10) + 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public long direct() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long versions = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            ProductUpdate update = update(random);
+            versions += service.modifyProduct(BenchmarkProducts.id(random.nextInt(ids)), update.name(), update.category(),
+                    update.rating(), ProductStore.ANY_VERSION).map(VersionedProduct::version).orElse(0L);
+        }
+        return versions;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    @SuppressWarnings("unchecked")
+    public long pipelined() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CompletableFuture<Optional<VersionedProduct>>[] results = new CompletableFuture[WINDOW];
+        for (int i = 0; i < WINDOW; i++) {
+            results[i] = pipeline.modify(BenchmarkProducts.id(random.nextInt(ids)), update(random));
+        }
+        long versions = 0;
+        for (CompletableFuture<Optional<VersionedProduct>> result : results) {
+            versions += result.join().map(VersionedProduct::version).orElse(0L);
+        }
+        return versions;
+    }
+}
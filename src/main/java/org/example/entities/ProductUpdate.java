@@ -0,0 +1,14 @@
+package org.example.entities;
+
+import jakarta.validation.constraints.*;
+
+public record ProductUpdate(
+        @NotBlank(message = "Name must not be blank")
+        String name,
+        @NotNull(message = "Category must not be null")
+        Category category,
+        @Min(value = 1, message = "Rating must be between 1 and 10")
+        @Max(value = 10, message = "Rating must be between 1 and 10")
+        int rating
+) {
+}
@@ -2,44 +2,31 @@ package org.example.exceptionmapper;
 
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
-import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-
 @Provider
 public class ConstraintViolationExceptionHandler implements ExceptionMapper<ConstraintViolationException> {
     private static final Logger logger = LoggerFactory.getLogger(ConstraintViolationExceptionHandler.class);
+    private static final String PREFIX = ErrorResponses.prefix("Validation error", Response.Status.BAD_REQUEST);
 
     @Override
     public Response toResponse(ConstraintViolationException exception) {
-        logger.error("ConstraintViolationException occurred: {}", exception.getMessage());
-
-        Set<ConstraintViolation<?>> violations = exception.getConstraintViolations();
-        String errors = violations.stream()
-                .map(violation -> {
-                    String propertyPath = violation.getPropertyPath().toString().replaceFirst("^.*\\.", "");
-                    return propertyPath + ": " + violation.getMessage();
-                })
-                .collect(Collectors.joining(", "));
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("error", "Validation error");
-        response.put("status", Response.Status.BAD_REQUEST.getStatusCode());
-        response.put("message", errors);
-        response.put("timestamp", LocalDateTime.now().toString());
+        // invalid client input, not a server fault, so a flood of it should not flood the error log
+        logger.debug("ConstraintViolationException occurred: {}", exception.getMessage());
 
-        return Response.status(Response.Status.BAD_REQUEST)
-                .entity(response)
-                .type(MediaType.APPLICATION_JSON)
-                .build();
+        StringBuilder errors = new StringBuilder();
+        for (ConstraintViolation<?> violation : exception.getConstraintViolations()) {
+            if (!errors.isEmpty()) {
+                errors.append(", ");
+            }
+            // the last node of the path, e.g. "name" of "addProduct.product.name"
+            String path = violation.getPropertyPath().toString();
+            errors.append(path, path.lastIndexOf('.') + 1, path.length()).append(": ").append(violation.getMessage());
+        }
+        return ErrorResponses.build(PREFIX, Response.Status.BAD_REQUEST, errors.toString());
     }
 }
@@ -0,0 +1,77 @@
+package org.example.exceptionmapper;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * JSON error bodies of the form {@code {"error":...,"status":...,"message":...,"timestamp":...}} built by
+ * appending to a prefix prepared once per mapper. The timestamp has second precision and is formatted once per
+ * second.
+ */
+final class ErrorResponses {
+    private static volatile Timestamp timestamp = new Timestamp(0, "");
+
+    private record Timestamp(long second, String text) {
+    }
+
+    private ErrorResponses() {
+    }
+
+    /**
+     * Returns the constant part of a body with {@code error} and {@code status}.
+     */
+    static String prefix(String error, Response.Status status) {
+        return "{\"error\":" + quote(error) + ",\"status\":" + status.getStatusCode();
+    }
+
+    /**
+     * Completes a body started by {@link #prefix}. {@code message} may be null to leave it out.
+     */
+    static Response build(String prefix, Response.Status status, String message) {
+        StringBuilder body = new StringBuilder(prefix.length() + 64 + (message == null ? 0 : message.length()))
+                .append(prefix);
+        if (message != null) {
+            body.append(",\"message\":").append(quote(message));
+        }
+        body.append(",\"timestamp\":\"").append(now()).append("\"}");
+        return Response.status(status)
+                .entity(body.toString())
+                .type(MediaType.APPLICATION_JSON)
+                .build();
+    }
+
+    private static String now() {
+        long second = System.currentTimeMillis() / 1000;
+        Timestamp current = timestamp;
+        if (current.second() != second) {
+            current = new Timestamp(second, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString());
+            timestamp = current;
+        }
+        return current.text();
+    }
+
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.interceptor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class MethodMetrics {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public record Stats(long calls, long errors, double callsPerSecond, long p50Micros, long p99Micros, long p999Micros) {
+    }
+
+    void record(long nanos, boolean error) {
+        latency.record(nanos);
+        calls.increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    Stats stats(double uptimeSeconds) {
+        long total = calls.sum();
+        return new Stats(
+                total,
+                errors.sum(),
+                uptimeSeconds > 0 ? total / uptimeSeconds : 0,
+                latency.quantile(0.5) / 1000,
+                latency.quantile(0.99) / 1000,
+                latency.quantile(0.999) / 1000
+        );
+    }
+}
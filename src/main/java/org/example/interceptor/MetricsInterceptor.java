@@ -0,0 +1,69 @@
+package org.example.interceptor;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records the latency and outcome of every {@link Log}-annotated call in the {@link MetricsRegistry}. Only a random
+ * sample of calls, one in {@code warehouse.metrics.logSampleRate} (0 disables it), is logged. Errors are thrown
+ * exceptions and 5xx responses. Calls returning a {@link CompletionStage} are recorded once it completes.
+ */
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+@Log
+public class MetricsInterceptor {
+    public static final String SAMPLE_RATE_PROPERTY = "warehouse.metrics.logSampleRate";
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsInterceptor.class);
+    private static final int SAMPLE_RATE = Integer.getInteger(SAMPLE_RATE_PROPERTY, 1000);
+
+    private MetricsRegistry registry;
+
+    public MetricsInterceptor() {
+    }
+
+    @Inject
+    public MetricsInterceptor(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @AroundInvoke
+    public Object intercept(InvocationContext ic) throws Exception {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = ic.proceed();
+        } catch (Exception | Error e) {
+            record(ic, start, true);
+            throw e;
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            // asynchronous resources return before the work is done, so time them until the stage completes
+            stage.whenComplete((value, failure) -> record(ic, start, failure != null || isServerError(value)));
+        } else {
+            record(ic, start, isServerError(result));
+        }
+        return result;
+    }
+
+    private static boolean isServerError(Object result) {
+        return result instanceof Response response && response.getStatus() >= 500;
+    }
+
+    private void record(InvocationContext ic, long start, boolean error) {
+        long elapsed = System.nanoTime() - start;
+        registry.forMethod(ic.getMethod()).record(elapsed, error);
+        if (SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0 && logger.isInfoEnabled()) {
+            logger.info("Method {} took {} µs{}", ic.getMethod().getName(), elapsed / 1000, error ? " and failed" : "");
+        }
+    }
+}
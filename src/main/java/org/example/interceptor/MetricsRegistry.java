@@ -0,0 +1,39 @@
+package org.example.interceptor;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@ApplicationScoped
+public class MetricsRegistry {
+    private final Map<Method, MethodMetrics> metrics = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    public MethodMetrics forMethod(Method method) {
+        MethodMetrics existing = metrics.get(method);
+        return existing != null ? existing : metrics.computeIfAbsent(method, m -> new MethodMetrics());
+    }
+
+    public Map<String, MethodMetrics.Stats> stats() {
+        double uptimeSeconds = (System.nanoTime() - startNanos) / 1e9;
+        Map<String, MethodMetrics.Stats> stats = new TreeMap<>();
+        metrics.forEach((method, methodMetrics) -> stats.put(key(method), methodMetrics.stats(uptimeSeconds)));
+        return stats;
+    }
+
+    /**
+     * {@code Class.method(ParameterType, ...)}, so overloads such as the JSON and NDJSON handlers of one path are
+     * reported separately.
+     */
+    private static String key(Method method) {
+        StringJoiner parameters = new StringJoiner(", ", "(", ")");
+        for (Class<?> type : method.getParameterTypes()) {
+            parameters.add(type.getSimpleName());
+        }
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName() + parameters;
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.persistence;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Columnar snapshot (format version 2), read through a {@link MappedByteBuffer}. Rows are decoded into
+ * {@link Product} records as the list is read, and recovery reads every row once.
+ * <pre>
+ * header   int magic, int version, int count, int reserved
+ * columns  int rating[count], int creationEpochDay[count], int lastModifiedEpochDay[count],
+ *          int idOffset[count + 1], int nameOffset[count + 1], byte category[count]
+ * strings  UTF-8 bytes of all ids followed by all names, addressed by the offset columns
+ * trailer  long crc32 of everything before it
+ * </pre>
+ */
+public class MappedSnapshot extends AbstractList<Product> implements RandomAccess {
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = Integer.BYTES * 4;
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int ratings;
+    private final int creationDates;
+    private final int modifiedDates;
+    private final int idOffsets;
+    private final int nameOffsets;
+    private final int categories;
+    private final int strings;
+
+    private MappedSnapshot(ByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+        this.ratings = HEADER_SIZE;
+        this.creationDates = ratings + count * Integer.BYTES;
+        this.modifiedDates = creationDates + count * Integer.BYTES;
+        this.idOffsets = modifiedDates + count * Integer.BYTES;
+        this.nameOffsets = idOffsets + (count + 1) * Integer.BYTES;
+        this.categories = nameOffsets + (count + 1) * Integer.BYTES;
+        this.strings = categories + count;
+    }
+
+    public static MappedSnapshot map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE + Long.BYTES
+                || buffer.getInt(0) != SnapshotFile.MAGIC
+                || buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Not a columnar product snapshot: " + file);
+        }
+        int end = buffer.capacity() - Long.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, end));
+        if (buffer.getLong(end) != crc.getValue()) {
+            throw new IOException("Corrupt product snapshot: " + file);
+        }
+        return new MappedSnapshot(buffer, buffer.getInt(Integer.BYTES * 2));
+    }
+
+    /**
+     * Writes {@code products}, which must be ordered by id, in the columnar format.
+     */
+    static void write(FileChannel channel, List<Product> products) throws IOException {
+        int count = products.size();
+        byte[][] ids = new byte[count][];
+        byte[][] names = new byte[count][];
+        long stringBytes = 0;
+        for (int i = 0; i < count; i++) {
+            ids[i] = products.get(i).id().getBytes(StandardCharsets.UTF_8);
+            names[i] = products.get(i).name().getBytes(StandardCharsets.UTF_8);
+            stringBytes += ids[i].length + names[i].length;
+        }
+        long size = HEADER_SIZE + (long) count * Integer.BYTES * 5 + Integer.BYTES * 2L + count + stringBytes + Long.BYTES;
+        // string offsets are ints and a file is read through a single mapping
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Catalogue too large for a single snapshot");
+        }
+
+        MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        out.putInt(SnapshotFile.MAGIC).putInt(VERSION).putInt(count).putInt(0);
+        products.forEach(product -> out.putInt(product.rating()));
+        products.forEach(product -> out.putInt((int) product.creationDate().toEpochDay()));
+        products.forEach(product -> out.putInt((int) product.lastModifiedDate().toEpochDay()));
+        int offset = 0;
+        for (byte[] id : ids) {
+            out.putInt(offset);
+            offset += id.length;
+        }
+        out.putInt(offset);
+        for (byte[] name : names) {
+            out.putInt(offset);
+            offset += name.length;
+        }
+        out.putInt(offset);
+        products.forEach(product -> out.put((byte) product.category().ordinal()));
+        for (byte[] id : ids) {
+            out.put(id);
+        }
+        for (byte[] name : names) {
+            out.put(name);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.slice(0, out.position()));
+        out.putLong(crc.getValue());
+        out.force();
+    }
+
+    @Override
+    public Product get(int row) {
+        Objects.checkIndex(row, count);
+        return new Product(
+                id(row),
+                string(nameOffsets, row),
+                CATEGORIES[buffer.get(categories + row)],
+                buffer.getInt(ratings + row * Integer.BYTES),
+                LocalDate.ofEpochDay(buffer.getInt(creationDates + row * Integer.BYTES)),
+                LocalDate.ofEpochDay(buffer.getInt(modifiedDates + row * Integer.BYTES))
+        );
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    private String id(int row) {
+        return string(idOffsets, row);
+    }
+
+    private String string(int offsetColumn, int row) {
+        int start = buffer.getInt(offsetColumn + row * Integer.BYTES);
+        int end = buffer.getInt(offsetColumn + (row + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        buffer.get(strings + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
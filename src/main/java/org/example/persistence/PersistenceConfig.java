@@ -0,0 +1,51 @@
+package org.example.persistence;
+
+import java.nio.file.Path;
+
+/**
+ * A write is applied to the in-memory catalogue and logged before it is synced, so concurrent readers can see it
+ * before it is durable. The writer itself only returns once the sync its {@code fsyncBatch} asks for has happened.
+ *
+ * @param directory              where the write-ahead log and snapshots are kept, {@code null} disables persistence
+ * @param fsyncBatch             0 never fsyncs, 1 fsyncs every write (concurrent writers share one fsync),
+ *                               n fsyncs once n writes are pending
+ * @param fsyncDelayMillis       with {@code fsyncBatch > 1}, the longest a logged write waits for a sync
+ * @param snapshotIntervalMillis how often a snapshot is taken if anything was written since the last one
+ */
+public record PersistenceConfig(Path directory, int fsyncBatch, long fsyncDelayMillis, long snapshotIntervalMillis) {
+    public static final String DIRECTORY_PROPERTY = "warehouse.persistence.dir";
+    public static final String FSYNC_BATCH_PROPERTY = "warehouse.persistence.fsyncBatch";
+    public static final String FSYNC_DELAY_PROPERTY = "warehouse.persistence.fsyncDelayMillis";
+    public static final String SNAPSHOT_INTERVAL_PROPERTY = "warehouse.persistence.snapshotIntervalMillis";
+
+    private static final long DEFAULT_FSYNC_DELAY_MILLIS = 1_000L;
+
+    public PersistenceConfig(Path directory, int fsyncBatch, long snapshotIntervalMillis) {
+        this(directory, fsyncBatch, DEFAULT_FSYNC_DELAY_MILLIS, snapshotIntervalMillis);
+    }
+
+    public static PersistenceConfig fromSystemProperties() {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        return new PersistenceConfig(
+                directory == null || directory.isBlank() ? null : Path.of(directory),
+                Integer.getInteger(FSYNC_BATCH_PROPERTY, 1),
+                Long.getLong(FSYNC_DELAY_PROPERTY, DEFAULT_FSYNC_DELAY_MILLIS),
+                Long.getLong(SNAPSHOT_INTERVAL_PROPERTY, 60_000L)
+        );
+    }
+
+    public boolean enabled() {
+        return directory != null;
+    }
+
+    /**
+     * Whether pending writes have to be synced on a timer because no writer is guaranteed to sync them.
+     */
+    public boolean needsPeriodicSync() {
+        return fsyncBatch > 1 && fsyncDelayMillis > 0;
+    }
+
+    public PersistenceConfig withDirectory(Path directory) {
+        return new PersistenceConfig(directory, fsyncBatch, fsyncDelayMillis, snapshotIntervalMillis);
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.persistence;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Compact binary form of a product: ids and names as modified UTF-8, the category as its ordinal
+ * and dates as epoch days. A string too long for {@link DataOutput#writeUTF} is written as the otherwise unused
+ * length {@code 0xFFFF}, an int byte count and standard UTF-8, so everything written before stays readable.
+ */
+public final class ProductCodec {
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int LONG_STRING = 0xFFFF;
+    private static final int READ_CHUNK = 1 << 16;
+
+    private ProductCodec() {
+    }
+
+    public static void write(DataOutput out, Product product) throws IOException {
+        writeString(out, product.id());
+        writeString(out, product.name());
+        out.writeByte(product.category().ordinal());
+        out.writeInt(product.rating());
+        out.writeInt((int) product.creationDate().toEpochDay());
+        out.writeInt((int) product.lastModifiedDate().toEpochDay());
+    }
+
+    public static Product read(DataInput in) throws IOException {
+        return new Product(
+                readString(in),
+                readString(in),
+                CATEGORIES[in.readUnsignedByte()],
+                in.readInt(),
+                LocalDate.ofEpochDay(in.readInt()),
+                LocalDate.ofEpochDay(in.readInt())
+        );
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (fitsUtf(value)) {
+            out.writeUTF(value);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(LONG_STRING);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static boolean fitsUtf(String value) {
+        // modified UTF-8 takes at most three bytes per char
+        if (value.length() < LONG_STRING / 3) {
+            return true;
+        }
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c >= 1 && c <= 0x7F ? 1 : c <= 0x7FF ? 2 : 3;
+        }
+        return length < LONG_STRING;
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readUnsignedShort();
+        if (length == LONG_STRING) {
+            return new String(readLong(in, in.readInt()), StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        for (byte b : bytes) {
+            if (b <= 0) {
+                return decodeUtf(bytes);
+            }
+        }
+        // plain ASCII reads the same in modified and standard UTF-8
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads {@code length} bytes a chunk at a time, so a corrupt or hostile length fails at the end of the input
+     * instead of allocating it up front.
+     */
+    private static byte[] readLong(DataInput in, int length) throws IOException {
+        if (length < 0) {
+            throw new UTFDataFormatException("Negative string length: " + length);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.min(length, READ_CHUNK));
+        byte[] chunk = new byte[Math.min(length, READ_CHUNK)];
+        int remaining = length;
+        while (remaining > 0) {
+            int size = Math.min(remaining, chunk.length);
+            in.readFully(chunk, 0, size);
+            bytes.write(chunk, 0, size);
+            remaining -= size;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String decodeUtf(byte[] bytes) throws IOException {
+        byte[] framed = new byte[bytes.length + 2];
+        framed[0] = (byte) (bytes.length >>> 8);
+        framed[1] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, framed, 2, bytes.length);
+        return DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(framed)));
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.persistence;
+
+import org.example.entities.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Durable catalogue state in a directory of snapshots and write-ahead log segments. A snapshot numbered
+ * {@code n} contains every write logged before segment {@code n}, so recovery loads the newest snapshot and
+ * replays only the segments from {@code n} on. Older snapshots and segments are deleted once a newer snapshot is
+ * durable, so recovery refuses to start rather than fall back to them.
+ */
+public class ProductPersistence implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ProductPersistence.class);
+
+    private final PersistenceConfig config;
+    private WriteAheadLog wal;
+    // written by checkpoints, which the caller serializes, and read by the maintenance thread
+    private volatile long recordsAtCheckpoint;
+
+    public record Checkpoint(List<Product> products, long segment, long records) {
+    }
+
+    private ProductPersistence(PersistenceConfig config) {
+        this.config = config;
+    }
+
+    public static ProductPersistence open(PersistenceConfig config) {
+        try {
+            Files.createDirectories(config.directory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create persistence directory " + config.directory(), e);
+        }
+        return new ProductPersistence(config);
+    }
+
+    /**
+     * Rebuilds the catalogue from disk and opens a fresh log segment for new writes.
+     */
+    public Collection<Product> recover() {
+        try {
+            Map<String, Product> products = new LinkedHashMap<>();
+            long snapshotSegment = 0;
+            List<Path> snapshots = list(SnapshotFile::isSnapshot, SnapshotFile::segmentNumber);
+            if (!snapshots.isEmpty()) {
+                Path newest = snapshots.getLast();
+                try {
+                    SnapshotFile.read(newest).forEach(product -> products.put(product.id(), product));
+                } catch (IOException e) {
+                    // the log segments this snapshot covered are gone, so an older snapshot would silently lose writes
+                    throw new IOException("Newest snapshot " + newest + " is unreadable", e);
+                }
+                snapshotSegment = SnapshotFile.segmentNumber(newest);
+            }
+
+            long lastSegment = snapshotSegment;
+            long replayed = 0;
+            boolean intact = true;
+            for (Path segment : list(WriteAheadLog::isSegment, WriteAheadLog::segmentNumber)) {
+                long number = WriteAheadLog.segmentNumber(segment);
+                lastSegment = Math.max(lastSegment, number);
+                if (number < snapshotSegment) {
+                    continue;
+                }
+                if (!intact) {
+                    // replaying past a lost record could resurrect a state that was later overwritten
+                    discard(segment);
+                    continue;
+                }
+                WriteAheadLog.Replay replay = WriteAheadLog.replay(segment, product -> products.put(product.id(), product));
+                replayed += replay.records();
+                intact = replay.intact();
+            }
+            logger.info("Recovered {} products from snapshot {} and {} log records", products.size(), snapshotSegment, replayed);
+
+            wal = new WriteAheadLog(config.directory(), lastSegment + 1, config.fsyncBatch());
+            // replayed records are not covered by a snapshot yet, so force the next checkpoint
+            recordsAtCheckpoint = replayed == 0 ? 0 : -1;
+            return products.values();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover products from " + config.directory(), e);
+        }
+    }
+
+    public WriteAheadLog journal() {
+        return wal;
+    }
+
+    public boolean hasChangesSinceCheckpoint() {
+        return wal.appendedRecords() != recordsAtCheckpoint;
+    }
+
+    /**
+     * Checkpoints must not overlap, or an older one finishing last would leave a stale record count behind.
+     * Must be called while no writes can be appended, so that {@code products} is exactly the state logged
+     * before the new segment.
+     */
+    public Checkpoint beginCheckpoint(Collection<Product> products) {
+        return new Checkpoint(List.copyOf(products), wal.rotate(), wal.appendedRecords());
+    }
+
+    /**
+     * Writes the snapshot outside of any lock and removes the snapshots and log segments it supersedes.
+     */
+    public void completeCheckpoint(Checkpoint checkpoint) {
+        try {
+            SnapshotFile.write(SnapshotFile.path(config.directory(), checkpoint.segment()), checkpoint.products());
+            recordsAtCheckpoint = checkpoint.records();
+            for (Path snapshot : list(SnapshotFile::isSnapshot, SnapshotFile::segmentNumber)) {
+                if (SnapshotFile.segmentNumber(snapshot) < checkpoint.segment()) {
+                    Files.deleteIfExists(snapshot);
+                }
+            }
+            for (Path segment : list(WriteAheadLog::isSegment, WriteAheadLog::segmentNumber)) {
+                if (WriteAheadLog.segmentNumber(segment) < checkpoint.segment()) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot " + checkpoint.segment(), e);
+        }
+    }
+
+    private static void discard(Path segment) throws IOException {
+        Path discarded = segment.resolveSibling(segment.getFileName() + ".discarded");
+        logger.warn("Discarding {} because an earlier log segment is corrupt, keeping it as {}", segment, discarded);
+        Files.move(segment, discarded, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private List<Path> list(Predicate<Path> filter, ToLongFunction<Path> order) throws IOException {
+        try (Stream<Path> files = Files.list(config.directory())) {
+            return files.filter(filter).sorted(Comparator.comparingLong(order)).toList();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.persistence;
+
+import org.example.entities.Product;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Full copy of the catalogue, written to a temporary file, synced and atomically renamed so a crash never
+ * leaves a partial snapshot, in the columnar {@link MappedSnapshot} format.
+ */
+public final class SnapshotFile {
+    static final int MAGIC = 0x57534E50;
+
+    private SnapshotFile() {
+    }
+
+    public static Path path(Path directory, long segment) {
+        return directory.resolve(String.format("snapshot-%019d.bin", segment));
+    }
+
+    /**
+     * Writes {@code products}, which must be ordered by id.
+     */
+    public static void write(Path file, List<Product> products) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedSnapshot.write(channel, products);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(file.getParent());
+    }
+
+    /**
+     * Makes renames and deletions in {@code directory} durable, so a snapshot is on disk before the files it
+     * supersedes are removed.
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Returns the products of a snapshot, mapped and decoded lazily as the list is read.
+     */
+    public static List<Product> read(Path file) throws IOException {
+        return MappedSnapshot.map(file);
+    }
+
+    static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("snapshot-".length(), name.length() - ".bin".length()));
+    }
+
+    static boolean isSnapshot(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith("snapshot-") && name.endsWith(".bin") && Files.isRegularFile(file);
+    }
+}
@@ -0,0 +1,240 @@
+package org.example.persistence;
+
+import org.example.entities.Product;
+import org.example.service.ProductJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of product writes, split into numbered segments. Each record is
+ * {@code [int length][int crc32][byte type][product]}. Appends go straight to the {@link FileChannel};
+ * {@link #awaitDurable()} implements group commit so concurrent writers share a single fsync.
+ */
+public class WriteAheadLog implements ProductJournal, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+    private static final byte PUT = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final int fsyncBatch;
+    // a ReentrantLock rather than a monitor so virtual threads waiting for an fsync do not pin their carrier
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream bufferOut = new DataOutputStream(buffer);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private long segment;
+    private long appended;
+    private volatile long synced;
+
+    public WriteAheadLog(Path directory, long segment, int fsyncBatch) {
+        this.directory = directory;
+        this.fsyncBatch = fsyncBatch;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+    }
+
+    public static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("wal-%019d.log", segment));
+    }
+
+    @Override
+    public synchronized void append(Product product) {
+        long start = -1;
+        try {
+            start = channel.size();
+            buffer.reset();
+            bufferOut.writeInt(0);
+            bufferOut.writeInt(0);
+            bufferOut.writeByte(PUT);
+            ProductCodec.write(bufferOut, product);
+            ByteBuffer record = ByteBuffer.wrap(buffer.toByteArray());
+            int length = record.remaining() - HEADER_SIZE;
+            crc.reset();
+            crc.update(record.array(), HEADER_SIZE, length);
+            record.putInt(0, length).putInt(Integer.BYTES, (int) crc.getValue());
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            appended++;
+        } catch (IOException e) {
+            discardPartialRecord(start);
+            throw new UncheckedIOException("Could not append to write-ahead log", e);
+        }
+    }
+
+    private void discardPartialRecord(long start) {
+        if (start < 0) {
+            return;
+        }
+        try {
+            channel.truncate(start);
+        } catch (IOException e) {
+            logger.error("Could not discard partial write-ahead log record", e);
+        }
+    }
+
+    /**
+     * Blocks until every record appended so far is on disk, according to the configured fsync batching.
+     */
+    public void awaitDurable() {
+        if (fsyncBatch <= 0) {
+            return;
+        }
+        long target;
+        synchronized (this) {
+            target = appended;
+            if (target - synced < fsyncBatch) {
+                return;
+            }
+        }
+        sync(target);
+    }
+
+    public void sync() {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        sync(target);
+    }
+
+    private void sync(long target) {
+        syncLock.lock();
+        try {
+            if (synced >= target) {
+                return;
+            }
+            long upTo;
+            FileChannel current;
+            synchronized (this) {
+                upTo = appended;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not sync write-ahead log", e);
+            }
+            synced = upTo;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. Returns the number of the new segment.
+     */
+    public long rotate() {
+        syncLock.lock();
+        try {
+            synchronized (this) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not close write-ahead log segment", e);
+                }
+                synced = appended;
+                segment++;
+                channel = openSegment(segment);
+                return segment;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public synchronized long appendedRecords() {
+        return appended;
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        try {
+            synchronized (this) {
+                channel.force(false);
+                channel.close();
+                synced = appended;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private FileChannel openSegment(long segment) {
+        try {
+            return FileChannel.open(segmentPath(directory, segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open write-ahead log segment " + segment, e);
+        }
+    }
+
+    /**
+     * @param records how many records were replayed
+     * @param intact  false if the segment ended in a torn or corrupt record, after which nothing can be trusted
+     */
+    public record Replay(long records, boolean intact) {
+    }
+
+    /**
+     * Replays every intact record of a segment. A torn or corrupt tail, as left by a crash during an append,
+     * is truncated away.
+     */
+    public static Replay replay(Path segmentFile, Consumer<Product> consumer) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segmentFile));
+        CRC32 checksum = new CRC32();
+        long records = 0;
+        int valid = 0;
+        while (data.remaining() >= HEADER_SIZE) {
+            int length = data.getInt();
+            int expectedCrc = data.getInt();
+            if (length <= 0 || length > data.remaining()) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(data.array(), data.position(), length);
+            if ((int) checksum.getValue() != expectedCrc) {
+                break;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data.array(), data.position(), length));
+            if (in.readByte() == PUT) {
+                consumer.accept(ProductCodec.read(in));
+            }
+            data.position(data.position() + length);
+            valid = data.position();
+            records++;
+        }
+        if (valid == data.capacity()) {
+            return new Replay(records, true);
+        }
+        logger.warn("Truncating {} bytes of incomplete records from {}", data.capacity() - valid, segmentFile);
+        try (FileChannel file = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+            file.truncate(valid);
+        }
+        return new Replay(records, false);
+    }
+
+    static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("wal-".length(), name.length() - ".log".length()));
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith("wal-") && name.endsWith(".log") && Files.isRegularFile(file);
+    }
+}
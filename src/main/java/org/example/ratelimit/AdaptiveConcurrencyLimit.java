@@ -0,0 +1,72 @@
+package org.example.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the requests in flight by a limit that follows latency. The limit is scaled by the ratio between the
+ * lowest latency seen, taken as the latency without queueing, and the smoothed current latency: it shrinks when
+ * requests start waiting for each other and grows by a small queue allowance while latency stays low. The lowest
+ * latency is periodically reset to the current one so a permanent change in service time is picked up.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final double TOLERANCE = 2.0;
+    private static final double SMOOTHING = 0.1;
+    private static final int PROBE_INTERVAL = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile double limit;
+    private long minLatency = Long.MAX_VALUE;
+    private double smoothedLatency;
+    private long samples;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases a request acquired with {@link #tryAcquire()} that took {@code latencyNanos}. Samples arriving while
+     * another thread updates the limit are dropped rather than waited for.
+     */
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        if (!updateLock.tryLock()) {
+            return;
+        }
+        try {
+            long latency = Math.max(1, latencyNanos);
+            minLatency = Math.min(minLatency, latency);
+            smoothedLatency = smoothedLatency == 0 ? latency : smoothedLatency + SMOOTHING * (latency - smoothedLatency);
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * minLatency / smoothedLatency));
+            double current = limit;
+            double target = current * gradient + Math.sqrt(current);
+            limit = Math.max(minLimit, Math.min(maxLimit, current + SMOOTHING * (target - current)));
+            if (++samples % PROBE_INTERVAL == 0) {
+                minLatency = (long) smoothedLatency;
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.ratelimit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The slot of the adaptive concurrency limit held by one admitted request. It is released by whichever of
+ * {@link RateLimitFilter} and {@link PermitReleaseFilter} sees the request finish first, and only once.
+ */
+final class ConcurrencyPermit {
+    private final RateLimiter limiter;
+    private final long admittedAt = System.nanoTime();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ConcurrencyPermit(RateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    void release() {
+        if (released.compareAndSet(false, true)) {
+            limiter.complete(System.nanoTime() - admittedAt);
+        }
+    }
+}
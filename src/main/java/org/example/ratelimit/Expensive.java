@@ -0,0 +1,15 @@
+package org.example.ratelimit;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Charges a resource method to the expensive rate limit budget instead of the cheap one.
+ */
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Expensive {
+}
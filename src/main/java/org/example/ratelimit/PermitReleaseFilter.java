@@ -0,0 +1,57 @@
+package org.example.ratelimit;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+
+import java.io.IOException;
+
+/**
+ * Releases the concurrency permit {@link RateLimitFilter} took for a request once the container is done with it.
+ * JAX-RS response filters are skipped for unmapped exceptions and for asynchronous requests that are never resumed,
+ * so they alone would leak permits until the limit admits nothing.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class PermitReleaseFilter implements Filter {
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion());
+            } else {
+                release(request);
+            }
+        }
+    }
+
+    private static void release(ServletRequest request) {
+        if (request.getAttribute(RateLimitFilter.PERMIT) instanceof ConcurrencyPermit permit) {
+            permit.release();
+        }
+    }
+
+    private static class ReleaseOnCompletion implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(event.getSuppliedRequest());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(event.getSuppliedRequest());
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(event.getSuppliedRequest());
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // listeners are dropped when a request goes asynchronous again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.ratelimit;
+
+/**
+ * @param cheapPerSecond       sustained requests per second and client to cheap endpoints
+ * @param cheapBurst           requests a client may make to cheap endpoints at once after being idle
+ * @param expensivePerSecond   sustained requests per second and client to {@link Expensive} endpoints
+ * @param expensiveBurst       requests a client may make to expensive endpoints at once after being idle
+ * @param maxClients           clients tracked per budget at once; new clients are refused while that many are active
+ * @param adaptiveConcurrency  whether to also bound requests in flight by a limit that follows latency
+ * @param clientHeader         request header identifying the client, or null to key on the remote address. Only for
+ *                             deployments behind a trusted proxy that sets this header and drops it from client
+ *                             requests, since otherwise any client can pick its own budget
+ */
+public record RateLimitConfig(double cheapPerSecond, int cheapBurst, double expensivePerSecond, int expensiveBurst,
+                              int maxClients, boolean adaptiveConcurrency, String clientHeader) {
+    public static final String CHEAP_PER_SECOND_PROPERTY = "warehouse.rateLimit.cheapPerSecond";
+    public static final String CHEAP_BURST_PROPERTY = "warehouse.rateLimit.cheapBurst";
+    public static final String EXPENSIVE_PER_SECOND_PROPERTY = "warehouse.rateLimit.expensivePerSecond";
+    public static final String EXPENSIVE_BURST_PROPERTY = "warehouse.rateLimit.expensiveBurst";
+    public static final String MAX_CLIENTS_PROPERTY = "warehouse.rateLimit.maxClients";
+    public static final String ADAPTIVE_CONCURRENCY_PROPERTY = "warehouse.rateLimit.adaptiveConcurrency";
+    public static final String CLIENT_HEADER_PROPERTY = "warehouse.rateLimit.clientHeader";
+
+    public static RateLimitConfig fromSystemProperties() {
+        return new RateLimitConfig(
+                Double.parseDouble(System.getProperty(CHEAP_PER_SECOND_PROPERTY, "200")),
+                Integer.getInteger(CHEAP_BURST_PROPERTY, 400),
+                Double.parseDouble(System.getProperty(EXPENSIVE_PER_SECOND_PROPERTY, "5")),
+                Integer.getInteger(EXPENSIVE_BURST_PROPERTY, 10),
+                Integer.getInteger(MAX_CLIENTS_PROPERTY, 65536),
+                Boolean.getBoolean(ADAPTIVE_CONCURRENCY_PROPERTY),
+                System.getProperty(CLIENT_HEADER_PROPERTY)
+        );
+    }
+}
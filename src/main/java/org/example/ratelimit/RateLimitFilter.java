@@ -0,0 +1,87 @@
+package org.example.ratelimit;
+
+import jakarta.inject.Inject;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Rejects requests over their client's budget with 429 Too Many Requests and a {@code Retry-After} header.
+ * Methods annotated {@link Expensive} draw from the expensive budget, all others from the cheap one. Clients are
+ * told apart by remote address, or by the configured header when running behind a trusted proxy. A concurrency
+ * permit is released when the response is filtered, or by {@link PermitReleaseFilter} if that never happens.
+ * Server-sent event streams take no permit, since they stay open for as long as the client listens.
+ */
+@Provider
+public class RateLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    static final String PERMIT = RateLimitFilter.class.getName() + ".permit";
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    private RateLimiter limiter;
+
+    public RateLimitFilter() {
+    }
+
+    @Inject
+    public RateLimitFilter(RateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+        boolean expensive = method != null && method.isAnnotationPresent(Expensive.class);
+        boolean bounded = !streams(method);
+        Response rejection = limiter.admit(client(request), expensive, bounded);
+        if (rejection != null) {
+            request.abortWith(rejection);
+            return;
+        }
+        if (bounded && limiter.limitsConcurrency()) {
+            // request properties are servlet request attributes, where PermitReleaseFilter finds the permit
+            request.setProperty(PERMIT, new ConcurrencyPermit(limiter));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (request.getProperty(PERMIT) instanceof ConcurrencyPermit permit) {
+            permit.release();
+        }
+    }
+
+    private static boolean streams(Method method) {
+        Produces produces = method == null ? null : method.getAnnotation(Produces.class);
+        return produces != null && Arrays.asList(produces.value()).contains(MediaType.SERVER_SENT_EVENTS);
+    }
+
+    private String client(ContainerRequestContext request) {
+        String header = limiter.clientHeader();
+        String client = header == null ? null : request.getHeaderString(header);
+        if (client != null && !client.isBlank()) {
+            return client;
+        }
+        try {
+            return servletRequest.getRemoteAddr();
+        } catch (RuntimeException e) {
+            // no servlet request outside a servlet container
+            return "unknown";
+        }
+    }
+}
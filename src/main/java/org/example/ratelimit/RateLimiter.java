@@ -0,0 +1,106 @@
+package org.example.ratelimit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission decisions for {@link RateLimitFilter}: a per-client token bucket for the cheap and the expensive
+ * budget and, if enabled, an {@link AdaptiveConcurrencyLimit} shared by all clients.
+ */
+@ApplicationScoped
+public class RateLimiter {
+    private static final int INITIAL_CONCURRENCY = 64;
+    private static final int MIN_CONCURRENCY = 8;
+    private static final int MAX_CONCURRENCY = 4096;
+
+    private final TokenBuckets cheap;
+    private final TokenBuckets expensive;
+    private final AdaptiveConcurrencyLimit concurrency;
+    private final String clientHeader;
+    private final LongAdder rejectedCheap = new LongAdder();
+    private final LongAdder rejectedExpensive = new LongAdder();
+    private final LongAdder rejectedConcurrency = new LongAdder();
+
+    /**
+     * {@code concurrencyLimit} and {@code inFlight} are null unless the adaptive concurrency limit is enabled.
+     */
+    public record Stats(long rejectedCheap, long rejectedExpensive, long rejectedConcurrency,
+                        Integer concurrencyLimit, Integer inFlight) {
+    }
+
+    public RateLimiter() {
+        this(RateLimitConfig.fromSystemProperties(), System::nanoTime);
+    }
+
+    public RateLimiter(RateLimitConfig config, LongSupplier clock) {
+        this.cheap = new TokenBuckets(config.cheapPerSecond(), config.cheapBurst(), config.maxClients(), clock);
+        this.expensive = new TokenBuckets(config.expensivePerSecond(), config.expensiveBurst(), config.maxClients(), clock);
+        this.concurrency = config.adaptiveConcurrency()
+                ? new AdaptiveConcurrencyLimit(INITIAL_CONCURRENCY, MIN_CONCURRENCY, MAX_CONCURRENCY)
+                : null;
+        this.clientHeader = config.clientHeader();
+    }
+
+    /**
+     * The header identifying clients, or null if they are identified by remote address.
+     */
+    public String clientHeader() {
+        return clientHeader;
+    }
+
+    /**
+     * Whether admitted requests hold a slot of the concurrency limit until {@link #complete(long)} is called.
+     */
+    public boolean limitsConcurrency() {
+        return concurrency != null;
+    }
+
+    /**
+     * Returns null if the request may proceed, in which case {@link #complete(long)} must be called exactly once
+     * when it is answered, or the 429 response to send instead.
+     */
+    public Response admit(String client, boolean expensiveRequest) {
+        return admit(client, expensiveRequest, true);
+    }
+
+    /**
+     * Like {@link #admit(String, boolean)}, but a request with {@code bounded} false takes no slot of the concurrency
+     * limit and must not be {@link #complete(long) completed}. For long-lived connections such as event streams,
+     * whose duration says nothing about how loaded the server is.
+     */
+    public Response admit(String client, boolean expensiveRequest, boolean bounded) {
+        long wait = (expensiveRequest ? expensive : cheap).tryAcquire(client);
+        if (wait > 0) {
+            (expensiveRequest ? rejectedExpensive : rejectedCheap).increment();
+            return tooManyRequests(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        if (bounded && concurrency != null && !concurrency.tryAcquire()) {
+            rejectedConcurrency.increment();
+            return tooManyRequests(1);
+        }
+        return null;
+    }
+
+    public void complete(long latencyNanos) {
+        if (concurrency != null) {
+            concurrency.release(latencyNanos);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(rejectedCheap.sum(), rejectedExpensive.sum(), rejectedConcurrency.sum(),
+                concurrency == null ? null : concurrency.limit(),
+                concurrency == null ? null : concurrency.inFlight());
+    }
+
+    private static Response tooManyRequests(long retryAfterSeconds) {
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .build();
+    }
+}
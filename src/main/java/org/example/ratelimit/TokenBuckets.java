@@ -0,0 +1,83 @@
+package org.example.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * One token bucket per client, holding the theoretical arrival time of the client's next request (the generic cell
+ * rate algorithm). At most {@code maxClients} buckets are kept. A bucket that has refilled completely is the same as
+ * no bucket, so once the limit is reached idle clients are evicted; while every tracked client is still active, new
+ * clients are turned away instead of sharing anyone's budget.
+ */
+public class TokenBuckets {
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentHashMap<String, Long> arrivals = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final long interval;
+    private final long tolerance;
+    private final int maxClients;
+    private final LongSupplier clock;
+    private long nextSweep;
+
+    /**
+     * @param clock nanosecond time source such as {@link System#nanoTime()}
+     */
+    public TokenBuckets(double permitsPerSecond, int burst, int maxClients, LongSupplier clock) {
+        if (permitsPerSecond <= 0 || burst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("Rate, burst and client limit must be positive");
+        }
+        this.interval = Math.max(1, (long) (1e9 / permitsPerSecond));
+        this.tolerance = interval * (burst - 1);
+        this.maxClients = maxClients;
+        this.clock = clock;
+        this.nextSweep = clock.getAsLong();
+    }
+
+    /**
+     * Takes a token from the bucket of {@code key}. Returns 0 on success, otherwise the nanoseconds until a token
+     * will be available.
+     */
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        if (arrivals.size() >= maxClients && !arrivals.containsKey(key) && !evictIdle(now)) {
+            return interval;
+        }
+        long[] wait = new long[1];
+        // compute locks the entry, so a bucket is never evicted while a token is taken from it
+        arrivals.compute(key, (client, arrival) -> {
+            long start = arrival == null || arrival - now < 0 ? now : arrival;
+            long remaining = start - now - tolerance;
+            if (remaining > 0) {
+                wait[0] = remaining;
+                return arrival;
+            }
+            return start + interval;
+        });
+        return wait[0];
+    }
+
+    int clients() {
+        return arrivals.size();
+    }
+
+    /**
+     * Drops the buckets that have refilled, at most once per {@link #SWEEP_INTERVAL}, and returns whether there is
+     * room for another client.
+     */
+    private boolean evictIdle(long now) {
+        if (sweepLock.tryLock()) {
+            try {
+                if (now - nextSweep >= 0) {
+                    nextSweep = now + SWEEP_INTERVAL;
+                    arrivals.values().removeIf(arrival -> arrival - now <= 0);
+                }
+            } finally {
+                sweepLock.unlock();
+            }
+        }
+        return arrivals.size() < maxClients;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.replication;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks a resource serving the replicated catalogue. On a follower its writes are refused and its reads are
+ * refused while the follower is too stale.
+ */
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface Replicated {
+}
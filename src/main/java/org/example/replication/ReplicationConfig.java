@@ -0,0 +1,60 @@
+package org.example.replication;
+
+/**
+ * @param role               whether this node replicates, and from which side
+ * @param port               port the leader listens on for followers, 0 for any free port
+ * @param leaderHost         host a follower connects to
+ * @param leaderPort         port a follower connects to
+ * @param batchSize          most log records shipped in one batch
+ * @param retainedRecords    log records the leader keeps for followers; one further behind catches up from a snapshot
+ * @param heartbeatMillis    how long the leader waits for a write before telling an idle follower it is caught up
+ * @param maxStalenessMillis how long a follower serves reads after it was last known to be caught up
+ */
+public record ReplicationConfig(Role role, int port, String leaderHost, int leaderPort, int batchSize,
+                                int retainedRecords, long heartbeatMillis, long maxStalenessMillis) {
+    public static final String ROLE_PROPERTY = "warehouse.replication.role";
+    public static final String PORT_PROPERTY = "warehouse.replication.port";
+    public static final String LEADER_PROPERTY = "warehouse.replication.leader";
+    public static final String BATCH_SIZE_PROPERTY = "warehouse.replication.batchSize";
+    public static final String RETAINED_RECORDS_PROPERTY = "warehouse.replication.retainedRecords";
+    public static final String HEARTBEAT_PROPERTY = "warehouse.replication.heartbeatMillis";
+    public static final String MAX_STALENESS_PROPERTY = "warehouse.replication.maxStalenessMillis";
+
+    public enum Role {
+        /**
+         * Accepts reads and writes and ships nothing.
+         */
+        STANDALONE,
+        /**
+         * Accepts reads and writes and ships every write to its followers.
+         */
+        LEADER,
+        /**
+         * Applies the writes of its leader and only accepts reads.
+         */
+        FOLLOWER
+    }
+
+    /**
+     * Reads the configuration, where {@value #LEADER_PROPERTY} is {@code host:port}.
+     */
+    public static ReplicationConfig fromSystemProperties() {
+        Role role = Role.valueOf(System.getProperty(ROLE_PROPERTY, Role.STANDALONE.name()).toUpperCase());
+        int port = Integer.getInteger(PORT_PROPERTY, 7070);
+        String leader = System.getProperty(LEADER_PROPERTY, "localhost:" + port);
+        int separator = leader.lastIndexOf(':');
+        if (role == Role.FOLLOWER && separator < 0) {
+            throw new IllegalArgumentException(LEADER_PROPERTY + " must be host:port but was " + leader);
+        }
+        return new ReplicationConfig(
+                role,
+                port,
+                separator < 0 ? leader : leader.substring(0, separator),
+                separator < 0 ? port : Integer.parseInt(leader.substring(separator + 1)),
+                Integer.getInteger(BATCH_SIZE_PROPERTY, 1024),
+                Integer.getInteger(RETAINED_RECORDS_PROPERTY, 100_000),
+                Long.getLong(HEARTBEAT_PROPERTY, 500L),
+                Long.getLong(MAX_STALENESS_PROPERTY, 5_000L)
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.replication;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.Set;
+
+/**
+ * Answers requests to {@link Replicated} resources that this node may not serve with the response chosen by
+ * {@link ReplicationNode#admit(boolean)}.
+ */
+@Provider
+public class ReplicationFilter implements ContainerRequestFilter {
+    private static final Set<String> READS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    private ReplicationNode node;
+
+    public ReplicationFilter() {
+    }
+
+    @Inject
+    public ReplicationFilter(ReplicationNode node) {
+        this.node = node;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        Class<?> resource = resourceInfo == null ? null : resourceInfo.getResourceClass();
+        if (resource == null || !resource.isAnnotationPresent(Replicated.class)) {
+            return;
+        }
+        Response rejection = node.admit(!READS.contains(request.getMethod()));
+        if (rejection != null) {
+            request.abortWith(rejection);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.replication;
+
+import org.example.service.WarehouseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies the writes shipped by the leader to the local service from a background thread, reconnecting with
+ * backoff whenever the connection is lost. The follower resumes from the last record it applied, so the leader
+ * only sends a snapshot when that record is no longer in its log or the log is not the one it was read from.
+ */
+public class ReplicationFollower implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationFollower.class);
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WarehouseService service;
+    private final ReplicationConfig config;
+    private final Thread thread;
+    private volatile Socket socket;
+    private volatile boolean closed;
+    private final ReentrantLock appliedLock = new ReentrantLock();
+    private final Condition advanced = appliedLock.newCondition();
+    // written by the follower thread only
+    private volatile long logId = ReplicationProtocol.NO_LOG;
+    private volatile long applied;
+    private volatile long leaderSequence;
+    private volatile long caughtUpAt;
+    private volatile boolean caughtUp;
+
+    public ReplicationFollower(WarehouseService service, ReplicationConfig config) {
+        this.service = service;
+        this.config = config;
+        this.thread = Thread.ofPlatform().daemon().name("replication-follower").start(this::run);
+    }
+
+    /**
+     * Number of the last leader record applied here.
+     */
+    public long applied() {
+        return applied;
+    }
+
+    /**
+     * The leader's newest record as of the last frame received.
+     */
+    public long leaderSequence() {
+        return leaderSequence;
+    }
+
+    /**
+     * Milliseconds since this follower last had every write the leader had, or -1 if it never had.
+     */
+    public long stalenessMillis() {
+        return caughtUp ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - caughtUpAt) : -1;
+    }
+
+    /**
+     * Whether reads here miss at most the writes of the last {@code maxStalenessMillis}.
+     */
+    public boolean isFresh() {
+        long staleness = stalenessMillis();
+        return staleness >= 0 && staleness <= config.maxStalenessMillis();
+    }
+
+    /**
+     * Waits until the leader record {@code sequence} has been applied, returning false if it was not in time.
+     */
+    public boolean awaitApplied(long sequence, long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        appliedLock.lock();
+        try {
+            while (applied < sequence) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = advanced.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            appliedLock.unlock();
+        }
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (!closed) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(new InetSocketAddress(config.leaderHost(), config.leaderPort()), CONNECT_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                // a leader that stops sending heartbeats is treated as gone
+                connection.setSoTimeout((int) Math.max(4 * config.heartbeatMillis(), 1_000));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), BUFFER_SIZE));
+                ReplicationProtocol.writeHello(new DataOutputStream(connection.getOutputStream()), logId, applied);
+                backoff = MIN_BACKOFF_MILLIS;
+                while (!closed) {
+                    apply(ReplicationProtocol.read(in));
+                }
+            } catch (IOException | RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                logger.warn("Lost replication leader {}:{}, retrying in {} ms: {}",
+                        config.leaderHost(), config.leaderPort(), backoff, e.toString());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(2 * backoff, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void apply(ReplicationProtocol.Frame frame) throws IOException {
+        if (frame.type() != ReplicationProtocol.SNAPSHOT && logId != ReplicationProtocol.NO_LOG && frame.logId() != logId) {
+            throw new IOException("Frame of log " + frame.logId() + " while following log " + logId);
+        }
+        switch (frame.type()) {
+            case ReplicationProtocol.SNAPSHOT -> {
+                logger.info("Catching up from a snapshot of {} products at sequence {}",
+                        frame.products().size(), frame.sequence());
+                service.applyReplicated(frame.products());
+            }
+            case ReplicationProtocol.BATCH -> {
+                if (frame.sequence() != applied + frame.products().size()) {
+                    throw new IOException("Batch ending at " + frame.sequence() + " does not follow " + applied);
+                }
+                service.applyReplicated(frame.products());
+            }
+            default -> {
+                if (frame.sequence() != applied) {
+                    throw new IOException("Heartbeat at " + frame.sequence() + " but applied " + applied);
+                }
+            }
+        }
+        logId = frame.logId();
+        leaderSequence = frame.leaderSequence();
+        if (frame.sequence() >= frame.leaderSequence()) {
+            caughtUpAt = System.nanoTime();
+            caughtUp = true;
+        }
+        appliedLock.lock();
+        try {
+            applied = frame.sequence();
+            advanced.signalAll();
+        } finally {
+            appliedLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        thread.interrupt();
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.replication;
+
+import org.example.entities.Product;
+import org.example.service.WarehouseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sequences every write to the service in a {@link ReplicationLog} and ships it to each connected follower from
+ * its own virtual thread, in batches of whatever accumulated since the last one.
+ */
+public class ReplicationLeader implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationLeader.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WarehouseService service;
+    private final ReplicationConfig config;
+    private final ReplicationLog log;
+    private final ServerSocket server;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private final LongAdder snapshotsSent = new LongAdder();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private record Snapshot(List<Product> products, long sequence) {
+    }
+
+    public ReplicationLeader(WarehouseService service, ReplicationConfig config) throws IOException {
+        this.service = service;
+        this.config = config;
+        this.log = new ReplicationLog(config.retainedRecords());
+        this.server = new ServerSocket(config.port());
+        service.replicateTo(log);
+        this.acceptor = Thread.ofPlatform().daemon().name("replication-leader").start(this::accept);
+        logger.info("Replication leader listening on port {}", server.getLocalPort());
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    public long sequence() {
+        return log.sequence();
+    }
+
+    public int followers() {
+        return followers.size();
+    }
+
+    public long snapshotsSent() {
+        return snapshotsSent.sum();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                followers.add(socket);
+                Thread.ofVirtual().name("replication-ship-" + socket.getRemoteSocketAddress()).start(() -> ship(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Could not accept follower", e);
+                }
+            }
+        }
+    }
+
+    private void ship(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+            ReplicationProtocol.Hello hello = ReplicationProtocol.readHello(in);
+            long position = hello.applied();
+            // positions in another log, such as the one of this leader before a restart, mean nothing here
+            boolean resync = hello.logId() != log.id() && hello.applied() != 0;
+            logger.info("Follower {} connected at sequence {}{}", socket.getRemoteSocketAddress(), position,
+                    resync ? " of another log" : "");
+            while (!closed) {
+                List<Product> batch = resync ? null : log.read(position, config.batchSize());
+                if (batch == null) {
+                    Snapshot snapshot = service.readConsistent(
+                            products -> new Snapshot(List.copyOf(products), log.sequence()));
+                    position = snapshot.sequence();
+                    resync = false;
+                    ReplicationProtocol.write(out, ReplicationProtocol.SNAPSHOT, log.id(), position, position,
+                            snapshot.products());
+                    snapshotsSent.increment();
+                } else if (!batch.isEmpty()) {
+                    position += batch.size();
+                    ReplicationProtocol.write(out, ReplicationProtocol.BATCH, log.id(), position, log.sequence(), batch);
+                } else if (log.await(position, config.heartbeatMillis())) {
+                    continue;
+                } else {
+                    ReplicationProtocol.write(out, ReplicationProtocol.HEARTBEAT, log.id(), position, log.sequence(),
+                            List.of());
+                }
+                out.flush();
+            }
+        } catch (SocketException | EOFException e) {
+            logger.info("Follower {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } catch (IOException e) {
+            logger.warn("Stopped shipping to follower {}", socket.getRemoteSocketAddress(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /**
+     * Disconnects every follower. Writes to the service are still sequenced, but no longer shipped.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Socket follower : followers) {
+            follower.close();
+        }
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
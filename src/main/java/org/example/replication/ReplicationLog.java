@@ -0,0 +1,107 @@
+package org.example.replication;
+
+import org.example.entities.Product;
+import org.example.service.ProductJournal;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The leader's sequence of writes, numbered from 1 in commit order. Only the newest {@code capacity} records are
+ * kept, in a ring. Sequence numbers restart with the leader, so every log has a random {@linkplain #id() id}
+ * that tells its records apart from those of an earlier one.
+ */
+class ReplicationLog implements ProductJournal {
+    private static final SecureRandom IDS = new SecureRandom();
+
+    private final long id;
+    private final Product[] ring;
+    // a ReentrantLock rather than a monitor so virtual threads waiting for records do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private long sequence;
+
+    ReplicationLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.ring = new Product[capacity];
+        long random;
+        do {
+            random = IDS.nextLong();
+        } while (random == ReplicationProtocol.NO_LOG);
+        this.id = random;
+    }
+
+    long id() {
+        return id;
+    }
+
+    @Override
+    public void append(Product product) {
+        lock.lock();
+        try {
+            ring[(int) (sequence % ring.length)] = product;
+            sequence++;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of the newest record, 0 before the first write.
+     */
+    long sequence() {
+        lock.lock();
+        try {
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code max} records following record {@code after}, or null if they are no longer kept or
+     * {@code after} is ahead of this log.
+     */
+    List<Product> read(long after, int max) {
+        lock.lock();
+        try {
+            if (after > sequence || after < sequence - ring.length) {
+                return null;
+            }
+            int count = (int) Math.min(max, sequence - after);
+            List<Product> records = new ArrayList<>(count);
+            for (long next = after; next < after + count; next++) {
+                records.add(ring[(int) (next % ring.length)]);
+            }
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until there is a record after {@code after}, returning false if none was written in time.
+     */
+    boolean await(long after, long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (sequence <= after) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = appended.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
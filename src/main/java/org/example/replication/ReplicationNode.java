@@ -0,0 +1,147 @@
+package org.example.replication;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.example.service.WarehouseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This node's part in replication, started with the application: a {@link ReplicationLeader}, a
+ * {@link ReplicationFollower} or neither.
+ */
+@ApplicationScoped
+public class ReplicationNode {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationNode.class);
+
+    private WarehouseService service;
+    private ReplicationConfig config;
+    private ReplicationLeader leader;
+    private ReplicationFollower follower;
+
+    /**
+     * {@code followers} is null unless this node is a leader; {@code leaderSequence} and {@code stalenessMillis}
+     * are null unless it is a follower.
+     */
+    public record Status(ReplicationConfig.Role role, long sequence, Integer followers, Long leaderSequence,
+                         Long stalenessMillis) {
+    }
+
+    public ReplicationNode() {
+    }
+
+    @Inject
+    public ReplicationNode(WarehouseService service) {
+        this(service, ReplicationConfig.fromSystemProperties());
+    }
+
+    public ReplicationNode(WarehouseService service, ReplicationConfig config) {
+        this.service = service;
+        this.config = config;
+    }
+
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        start();
+    }
+
+    public synchronized void start() {
+        if (leader != null || follower != null) {
+            return;
+        }
+        switch (config.role()) {
+            case LEADER -> {
+                try {
+                    leader = new ReplicationLeader(service, config);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not listen for followers on port " + config.port(), e);
+                }
+            }
+            case FOLLOWER -> follower = new ReplicationFollower(service, config);
+            case STANDALONE -> {
+            }
+        }
+    }
+
+    public ReplicationConfig.Role role() {
+        return config.role();
+    }
+
+    /**
+     * The running leader, or null.
+     */
+    public synchronized ReplicationLeader leader() {
+        return leader;
+    }
+
+    /**
+     * The running follower, or null.
+     */
+    public synchronized ReplicationFollower follower() {
+        return follower;
+    }
+
+    /**
+     * Returns null if a request to a {@link Replicated} resource may be served here, or the 503 response to send
+     * instead: followers refuse writes, and reads once they are staler than allowed.
+     */
+    public Response admit(boolean write) {
+        ReplicationFollower current = follower();
+        if (current == null) {
+            return null;
+        }
+        if (write) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .type(MediaType.TEXT_PLAIN)
+                    .entity("This node is a read-only follower, send writes to the leader")
+                    .build();
+        }
+        if (!current.isFresh()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(config.heartbeatMillis())))
+                    .type(MediaType.TEXT_PLAIN)
+                    .entity("This follower is not caught up with the leader")
+                    .build();
+        }
+        return null;
+    }
+
+    public synchronized Status status() {
+        if (leader != null) {
+            return new Status(config.role(), leader.sequence(), leader.followers(), null, null);
+        }
+        if (follower != null) {
+            return new Status(config.role(), follower.applied(), null, follower.leaderSequence(),
+                    follower.stalenessMillis());
+        }
+        return new Status(config.role(), 0, null, null, null);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        close(leader);
+        close(follower);
+        leader = null;
+        follower = null;
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                logger.error("Could not stop replication", e);
+            }
+        }
+    }
+}
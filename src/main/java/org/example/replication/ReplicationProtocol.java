@@ -0,0 +1,86 @@
+package org.example.replication;
+
+import org.example.entities.Product;
+import org.example.persistence.ProductCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The follower opens the connection with {@link #HELLO}, the id of the leader log it follows ({@link #NO_LOG} at
+ * first) and the number of the last record it applied from that log. From then on the leader sends frames: a type
+ * byte, the id of its log, a sequence number, the leader's newest sequence number, a product count and the products
+ * in {@link ProductCodec} form.
+ * <ul>
+ *     <li>{@link #SNAPSHOT}: every product as of the sequence number, sent when the follower's records are no
+ *     longer in the log or came from another log, as after a leader restart</li>
+ *     <li>{@link #BATCH}: the records following the follower's position, ending at the sequence number</li>
+ *     <li>{@link #HEARTBEAT}: no products, the sequence number is the follower's position</li>
+ * </ul>
+ */
+final class ReplicationProtocol {
+    static final int HELLO = 0x57524550;
+    static final long NO_LOG = 0;
+    static final byte SNAPSHOT = 'S';
+    static final byte BATCH = 'B';
+    static final byte HEARTBEAT = 'H';
+    private static final int MAX_PREALLOCATED = 65_536;
+
+    private ReplicationProtocol() {
+    }
+
+    record Hello(long logId, long applied) {
+    }
+
+    record Frame(byte type, long logId, long sequence, long leaderSequence, List<Product> products) {
+    }
+
+    static void writeHello(DataOutputStream out, long logId, long applied) throws IOException {
+        out.writeInt(HELLO);
+        out.writeLong(logId);
+        out.writeLong(applied);
+        out.flush();
+    }
+
+    static Hello readHello(DataInputStream in) throws IOException {
+        if (in.readInt() != HELLO) {
+            throw new IOException("Not a replication follower");
+        }
+        return new Hello(in.readLong(), in.readLong());
+    }
+
+    static void write(DataOutputStream out, byte type, long logId, long sequence, long leaderSequence,
+                      Collection<Product> products) throws IOException {
+        out.writeByte(type);
+        out.writeLong(logId);
+        out.writeLong(sequence);
+        out.writeLong(leaderSequence);
+        out.writeInt(products.size());
+        for (Product product : products) {
+            ProductCodec.write(out, product);
+        }
+    }
+
+    static Frame read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type != SNAPSHOT && type != BATCH && type != HEARTBEAT) {
+            throw new IOException("Unknown frame type " + type);
+        }
+        long logId = in.readLong();
+        long sequence = in.readLong();
+        long leaderSequence = in.readLong();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative product count " + count);
+        }
+        List<Product> products = new ArrayList<>(Math.min(count, MAX_PREALLOCATED));
+        for (int i = 0; i < count; i++) {
+            products.add(ProductCodec.read(in));
+        }
+        return new Frame(type, logId, sequence, leaderSequence, products);
+    }
+}
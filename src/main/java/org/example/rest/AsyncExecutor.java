@@ -0,0 +1,57 @@
+package org.example.rest;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs request handlers on virtual threads so blocking calls do not hold a container worker thread. At most
+ * {@code warehouse.async.maxConcurrency} handlers run at once; further requests are answered with
+ * 429 Too Many Requests instead of queueing without bound.
+ */
+@ApplicationScoped
+public class AsyncExecutor {
+    public static final String MAX_CONCURRENCY_PROPERTY = "warehouse.async.maxConcurrency";
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("warehouse-async-", 0).factory());
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public AsyncExecutor() {
+        this(Integer.getInteger(MAX_CONCURRENCY_PROPERTY, 1024));
+    }
+
+    public AsyncExecutor(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    public CompletionStage<Response> submit(Supplier<Response> handler) {
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build());
+        }
+        try {
+            return CompletableFuture.supplyAsync(handler, executor).whenComplete((response, failure) -> permits.release());
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return CompletableFuture.completedFuture(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        }
+    }
+
+    public int inFlight() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.rest;
+
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.Providers;
+import org.example.entities.Product;
+import org.example.entities.ProductUpdate;
+import org.example.interceptor.Log;
+import org.example.ratelimit.Expensive;
+import org.example.replication.Replicated;
+import org.example.service.WarehouseService;
+import org.example.service.WritePipeline;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Opt-in asynchronous variant of {@link WarehouseResource} under {@code /async}. Each request is handed to the
+ * {@link AsyncExecutor} and the container thread is released until the response is ready.
+ */
+@Log
+@Replicated
+@Path("/async")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class AsyncWarehouseResource {
+    private WarehouseResource resource;
+    private AsyncExecutor executor;
+    private WritePipeline pipeline;
+
+    public AsyncWarehouseResource() {
+    }
+
+    public AsyncWarehouseResource(WarehouseService warehouse, ResponseCache cache, AsyncExecutor executor) {
+        this(warehouse, cache, executor, null);
+    }
+
+    /**
+     * {@code pipeline} may be null or disabled, in which case modifications run on the executor like every
+     * other request.
+     */
+    @Inject
+    public AsyncWarehouseResource(WarehouseService warehouse, ResponseCache cache, AsyncExecutor executor,
+                                  WritePipeline pipeline) {
+        this.resource = new WarehouseResource(warehouse, cache);
+        this.executor = executor;
+        this.pipeline = pipeline;
+    }
+
+    @GET
+    @Path("/products")
+    @Expensive
+    public CompletionStage<Response> getAllProducts(@QueryParam("limit") Integer limit,
+                                                    @QueryParam("after") String after,
+                                                    @Context UriInfo uriInfo,
+                                                    @Context Request request,
+                                                    @Context Providers providers) {
+        return executor.submit(() -> resource.getAllProducts(limit, after, uriInfo, request, providers));
+    }
+
+    @GET
+    @Path("/products/{id}")
+    public CompletionStage<Response> getProductById(@PathParam("id") @Valid String id,
+                                                    @Context Request request,
+                                                    @Context Providers providers) {
+        return executor.submit(() -> resource.getProductById(id, request, providers));
+    }
+
+    @PUT
+    @Path("/products/{id}")
+    public CompletionStage<Response> modifyProduct(@PathParam("id") String id,
+                                                   @Valid ProductUpdate update,
+                                                   @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                                   @Context Request request) {
+        if (ifMatch == null && pipeline != null && pipeline.enabled()) {
+            return pipeline.modify(id, update).handle((modified, failure) -> {
+                if (failure instanceof RejectedExecutionException) {
+                    return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                            .header(HttpHeaders.RETRY_AFTER, AsyncExecutor.RETRY_AFTER_SECONDS)
+                            .build();
+                }
+                if (failure != null) {
+                    return Response.serverError().build();
+                }
+                return modified
+                        .map(product -> Response.ok(product.product()).tag(EntityTags.product(product.version())))
+                        .orElseGet(() -> Response.status(Response.Status.NOT_FOUND))
+                        .build();
+            });
+        }
+        return executor.submit(() -> resource.modifyProduct(id, update, ifMatch, request));
+    }
+
+    @GET
+    @Path("/products/category/{category}")
+    public CompletionStage<Response> getProductsByCategory(@PathParam("category") @Valid String category,
+                                                           @Context Request request,
+                                                           @Context Providers providers) {
+        return executor.submit(() -> resource.getProductsByCategory(category, request, providers));
+    }
+
+    @POST
+    @Path("/products")
+    public CompletionStage<Response> addProduct(Product product) {
+        WarehouseResource.requireValid(product);
+        return executor.submit(() -> resource.addProduct(product));
+    }
+
+    @POST
+    @Path("/products/batch")
+    @Expensive
+    public CompletionStage<Response> addProducts(List<Product> products) {
+        return executor.submit(() -> resource.addProducts(products));
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.rest;
+
+import jakarta.ws.rs.core.EntityTag;
+import org.example.entities.Category;
+import org.example.service.ModificationStamp;
+
+/**
+ * Strong entity tags derived from store versions and modification counters. Versions restart with the process, so every tag is prefixed
+ * with an id of this instance to keep tags from before a restart from matching.
+ */
+final class EntityTags {
+    private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+
+    private EntityTags() {
+    }
+
+    static EntityTag product(long version) {
+        return new EntityTag(INSTANCE + "-" + version);
+    }
+
+    static EntityTag catalogue(ModificationStamp stamp) {
+        return new EntityTag(INSTANCE + "-all-" + stamp.counter());
+    }
+
+    /**
+     * Tag of the binary representation of the resource tagged {@code tag} as JSON.
+     */
+    static EntityTag binary(EntityTag tag) {
+        return new EntityTag(tag.getValue() + "-bin");
+    }
+
+    static EntityTag category(Category category, ModificationStamp stamp) {
+        return new EntityTag(INSTANCE + "-" + category.name().toLowerCase() + "-" + stamp.counter());
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.rest;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs SSE subscribers, one virtual thread each. At most {@code warehouse.events.maxSubscribers} are connected at
+ * once, and closing interrupts the ones still running so they release their connections.
+ */
+@ApplicationScoped
+public class EventStreams {
+    public static final String MAX_SUBSCRIBERS_PROPERTY = "warehouse.events.maxSubscribers";
+    static final long RETRY_AFTER_SECONDS = 5;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("warehouse-events-", 0).factory());
+    private final Semaphore permits;
+    private final int maxSubscribers;
+
+    public EventStreams() {
+        this(Integer.getInteger(MAX_SUBSCRIBERS_PROPERTY, 256));
+    }
+
+    public EventStreams(int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+        this.permits = new Semaphore(maxSubscribers);
+    }
+
+    /**
+     * Starts {@code stream} unless the subscriber limit is reached or this has been closed.
+     *
+     * @return false if {@code stream} was not started
+     */
+    public boolean start(Runnable stream) {
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    stream.run();
+                } finally {
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return false;
+        }
+    }
+
+    public int subscribers() {
+        return maxSubscribers - permits.availablePermits();
+    }
+
+    @PreDestroy
+    public void close() {
+        // subscribers wait for new events indefinitely, so interrupt them rather than wait
+        executor.shutdownNow();
+        executor.close();
+    }
+}
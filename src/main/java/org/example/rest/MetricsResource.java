@@ -0,0 +1,64 @@
+package org.example.rest;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.example.interceptor.MetricsRegistry;
+import org.example.ratelimit.RateLimiter;
+import org.example.replication.ReplicationNode;
+import org.example.service.WritePipeline;
+
+@Path("/metrics")
+@Produces(MediaType.APPLICATION_JSON)
+public class MetricsResource {
+    private ResponseCache cache;
+    private MetricsRegistry registry;
+    private RateLimiter rateLimiter;
+    private ReplicationNode replication;
+    private WritePipeline writePipeline;
+
+    public MetricsResource() {
+    }
+
+    @Inject
+    public MetricsResource(ResponseCache cache, MetricsRegistry registry, RateLimiter rateLimiter,
+                           ReplicationNode replication, WritePipeline writePipeline) {
+        this.cache = cache;
+        this.registry = registry;
+        this.rateLimiter = rateLimiter;
+        this.replication = replication;
+        this.writePipeline = writePipeline;
+    }
+
+    @GET
+    public Response getMethodStats() {
+        return Response.ok(registry.stats()).build();
+    }
+
+    @GET
+    @Path("/cache")
+    public Response getCacheStats() {
+        return Response.ok(cache.stats()).build();
+    }
+
+    @GET
+    @Path("/rate-limit")
+    public Response getRateLimitStats() {
+        return Response.ok(rateLimiter.stats()).build();
+    }
+
+    @GET
+    @Path("/replication")
+    public Response getReplicationStatus() {
+        return Response.ok(replication.status()).build();
+    }
+
+    @GET
+    @Path("/write-pipeline")
+    public Response getWritePipelineStats() {
+        return Response.ok(writePipeline.stats()).build();
+    }
+}
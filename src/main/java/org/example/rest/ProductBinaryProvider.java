@@ -0,0 +1,88 @@
+package org.example.rest;
+
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import org.example.entities.Product;
+import org.example.persistence.ProductCodec;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and writes {@link Product} and collections of products as {@link WarehouseMediaType#APPLICATION_PRODUCTS}.
+ * A product is its {@link ProductCodec} encoding, with the category as an ordinal and dates as epoch days; a
+ * collection is its size as an int followed by its products.
+ */
+@Provider
+@Produces(WarehouseMediaType.APPLICATION_PRODUCTS)
+@Consumes(WarehouseMediaType.APPLICATION_PRODUCTS)
+public class ProductBinaryProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_PREALLOCATED = 1024;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == Product.class || (Collection.class.isAssignableFrom(type) && ofProducts(genericType));
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(entityStream, BUFFER_SIZE));
+        if (entity instanceof Product product) {
+            ProductCodec.write(out, product);
+        } else {
+            Collection<?> products = (Collection<?>) entity;
+            out.writeInt(products.size());
+            for (Object product : products) {
+                ProductCodec.write(out, (Product) product);
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == Product.class || (type.isAssignableFrom(ArrayList.class) && ofProducts(genericType));
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(entityStream, BUFFER_SIZE));
+        try {
+            if (Product.class.equals(type)) {
+                return ProductCodec.read(in);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new BadRequestException("Negative product count");
+            }
+            List<Product> products = new ArrayList<>(Math.min(count, MAX_PREALLOCATED));
+            for (int i = 0; i < count; i++) {
+                products.add(ProductCodec.read(in));
+            }
+            return products;
+        } catch (EOFException | UTFDataFormatException | ArrayIndexOutOfBoundsException | DateTimeException e) {
+            throw new BadRequestException("Malformed binary products", e);
+        }
+    }
+
+    private static boolean ofProducts(Type genericType) {
+        return genericType instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments().length == 1
+                && parameterized.getActualTypeArguments()[0] == Product.class;
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.rest;
+
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.example.entities.Product;
+import org.example.service.ProductEvent;
+import org.example.service.ProductEventLog;
+import org.example.service.WarehouseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pushes the product event log to one SSE subscriber, starting after a given sequence number. The subscriber reads
+ * the ring buffer at its own pace, so writers never wait for it. A subscriber that falls more than a buffer behind,
+ * or resumes after a sequence number this log never reached, is sent the catalogue again in pages of
+ * {@link #SNAPSHOT_PAGE_SIZE} and continues from there; one that does not accept an event within
+ * {@link #SEND_TIMEOUT_SECONDS} is disconnected.
+ * <p>
+ * The first page is a {@code snapshot} event, which replaces whatever the subscriber held, and the rest are
+ * {@code snapshot-page} events. Only the last page carries an id, so a subscriber that reconnects halfway through
+ * is sent the catalogue again. Pages are read without holding the store lock across them, so one may already
+ * include writes made while paging; those writes are sent again as ordinary events afterwards.
+ */
+public class ProductEventStream implements Runnable {
+    static final long SEND_TIMEOUT_SECONDS = 10;
+    static final long HEARTBEAT_SECONDS = 15;
+    public static final int SNAPSHOT_PAGE_SIZE = 1000;
+    private static final int BATCH_SIZE = 256;
+    private static final GenericType<List<Product>> PRODUCT_LIST = new GenericType<>() {
+    };
+    private static final Logger logger = LoggerFactory.getLogger(ProductEventStream.class);
+
+    private final WarehouseService warehouse;
+    private final SseEventSink sink;
+    private final Sse sse;
+    private long cursor;
+
+    /**
+     * {@code after} is the last sequence number the subscriber has seen, or null to receive only new events.
+     */
+    public ProductEventStream(WarehouseService warehouse, SseEventSink sink, Sse sse, Long after) {
+        this.warehouse = warehouse;
+        this.sink = sink;
+        this.sse = sse;
+        this.cursor = after == null ? warehouse.getEvents().lastSequence() : after;
+    }
+
+    @Override
+    public void run() {
+        ProductEventLog events = warehouse.getEvents();
+        try (sink) {
+            while (!sink.isClosed()) {
+                Optional<List<ProductEvent>> batch = events.readAfter(cursor, BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    cursor = sendSnapshot(events.lastSequence());
+                    continue;
+                }
+                for (ProductEvent event : batch.get()) {
+                    send(sse.newEventBuilder()
+                            .name(event.type().name().toLowerCase())
+                            .id(String.valueOf(event.sequence()))
+                            .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                            .data(Product.class, event.product())
+                            .build());
+                    cursor = event.sequence();
+                }
+                if (batch.get().isEmpty() && !events.awaitAfter(cursor, HEARTBEAT_SECONDS, TimeUnit.SECONDS)) {
+                    send(sse.newEventBuilder().comment("keep-alive").build());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            logger.info("Dropping event subscriber that did not accept an event within {} s", SEND_TIMEOUT_SECONDS);
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            logger.debug("Event subscriber disconnected", e);
+        }
+    }
+
+    /**
+     * Sends every product as of {@code sequence} or later and returns {@code sequence}. Anything written since
+     * {@code sequence} was read is visible to the pages or replayed after them.
+     */
+    private long sendSnapshot(long sequence) throws InterruptedException, ExecutionException, TimeoutException {
+        String after = null;
+        boolean first = true;
+        while (true) {
+            List<Product> page = warehouse.getProductsPage(after, SNAPSHOT_PAGE_SIZE);
+            boolean last = page.size() < SNAPSHOT_PAGE_SIZE;
+            OutboundSseEvent.Builder event = sse.newEventBuilder()
+                    .name(first ? "snapshot" : "snapshot-page")
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(PRODUCT_LIST, page);
+            if (last) {
+                event.id(String.valueOf(sequence));
+            }
+            send(event.build());
+            if (last) {
+                return sequence;
+            }
+            after = page.get(page.size() - 1).id();
+            first = false;
+        }
+    }
+
+    private void send(OutboundSseEvent event) throws InterruptedException, ExecutionException, TimeoutException {
+        sink.send(event).toCompletableFuture().get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
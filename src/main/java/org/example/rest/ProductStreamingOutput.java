@@ -0,0 +1,56 @@
+package org.example.rest;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Providers;
+import org.example.entities.Product;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+
+/**
+ * Writes products as newline-delimited JSON, one product at a time, using the registered JSON provider.
+ */
+public class ProductStreamingOutput implements StreamingOutput {
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private final Iterable<Product> products;
+    private final MessageBodyWriter<Product> writer;
+
+    public ProductStreamingOutput(Iterable<Product> products, Providers providers) {
+        this.products = products;
+        this.writer = providers.getMessageBodyWriter(Product.class, Product.class, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        OutputStream out = new NonClosingOutputStream(new BufferedOutputStream(output));
+        for (Product product : products) {
+            writer.writeTo(product, Product.class, Product.class, NO_ANNOTATIONS,
+                    MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), out);
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
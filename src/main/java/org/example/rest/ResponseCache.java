@@ -0,0 +1,130 @@
+package org.example.rest;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Providers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Already encoded response bodies, keyed by resource and stamped with the modification counter or version
+ * they were built at. An entry is only served while its stamp is current, so a write makes exactly the entries it
+ * affects unreachable and the next request replaces them. Entries are evicted least recently used first once the
+ * total size exceeds the byte budget.
+ */
+@ApplicationScoped
+public class ResponseCache {
+    public static final String MAX_BYTES_PROPERTY = "warehouse.responseCache.maxBytes";
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+    // assumed size of an item until a body for the key has been encoded once
+    private static final int ESTIMATED_ITEM_BYTES = 64;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Integer> itemBytes = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long bytes;
+
+    private record Entry(long stamp, byte[] body) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes, long maxBytes) {
+    }
+
+    public ResponseCache() {
+        this(Long.getLong(MAX_BYTES_PROPERTY, 64L << 20));
+    }
+
+    public ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached body for {@code key} at {@code stamp}, or encodes the entity with the JSON provider
+     * and caches it.
+     */
+    public byte[] get(String key, long stamp, Type type, Supplier<?> entity, Providers providers) {
+        return get(key, stamp, type, MediaType.APPLICATION_JSON_TYPE, entity, providers);
+    }
+
+    /**
+     * Same as {@link #get(String, long, Type, Supplier, Providers)} for bodies of {@code mediaType}, which must be
+     * part of {@code key}.
+     */
+    public byte[] get(String key, long stamp, Type type, MediaType mediaType, Supplier<?> entity, Providers providers) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.stamp() == stamp) {
+                hits.increment();
+                return entry.body();
+            }
+        }
+        misses.increment();
+        Object value = entity.get();
+        byte[] body = encode(value, type, mediaType, providers);
+        put(key, new Entry(stamp, body), value instanceof Collection<?> items ? items.size() : 0);
+        return body;
+    }
+
+    /**
+     * Whether a body of {@code items} items for {@code key} is expected to fit the byte budget, judged by the size
+     * per item of the last body encoded for it. A body that does not fit should be streamed rather than encoded
+     * into memory by {@link #get}.
+     */
+    public synchronized boolean fits(String key, int items) {
+        return (long) items * itemBytes.getOrDefault(key, ESTIMATED_ITEM_BYTES) <= maxBytes;
+    }
+
+    private synchronized void put(String key, Entry entry, int items) {
+        if (items > 0) {
+            itemBytes.put(key, Math.ceilDiv(entry.body().length, items));
+        }
+        if (entry.body().length > maxBytes) {
+            return;
+        }
+        Entry existing = entries.get(key);
+        if (existing != null && existing.stamp() > entry.stamp()) {
+            return;
+        }
+        Entry replaced = entries.put(key, entry);
+        bytes += entry.body().length - (replaced == null ? 0 : replaced.body().length);
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().body().length;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), bytes, maxBytes);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static byte[] encode(Object entity, Type type, MediaType mediaType, Providers providers) {
+        Class<?> rawType = entity.getClass();
+        MessageBodyWriter writer = providers.getMessageBodyWriter(rawType, type, NO_ANNOTATIONS, mediaType);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try {
+            writer.writeTo(entity, rawType, type, NO_ANNOTATIONS, mediaType, new MultivaluedHashMap<>(), out);
+        } catch (IOException e) {
+            throw new WebApplicationException("Could not encode response", e);
+        }
+        return out.toByteArray();
+    }
+}
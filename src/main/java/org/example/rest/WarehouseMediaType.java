@@ -0,0 +1,16 @@
+package org.example.rest;
+
+import jakarta.ws.rs.core.MediaType;
+
+public final class WarehouseMediaType {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+    /**
+     * Binary products, see {@link ProductBinaryProvider}.
+     */
+    public static final String APPLICATION_PRODUCTS = "application/x-warehouse-products";
+    public static final MediaType APPLICATION_PRODUCTS_TYPE = MediaType.valueOf(APPLICATION_PRODUCTS);
+
+    private WarehouseMediaType() {
+    }
+}
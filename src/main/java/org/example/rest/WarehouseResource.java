@@ -2,67 +2,404 @@ package org.example.rest;
 
 
 import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.GenericEntity;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.core.Variant;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.Providers;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import org.example.entities.Category;
 import org.example.entities.Product;
+import org.example.entities.ProductUpdate;
 import org.example.interceptor.Log;
+import org.example.ratelimit.Expensive;
+import org.example.replication.Replicated;
+import org.example.service.BatchResult;
+import org.example.service.ModificationStamp;
+import org.example.service.ProductQuery;
+import org.example.service.ProductStore;
+import org.example.service.QueryResult;
+import org.example.service.VersionConflictException;
+import org.example.service.VersionedProduct;
 import org.example.service.WarehouseService;
+import org.example.validation.ProductValidator;
 
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Log
+@Replicated
 @Path("/")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class WarehouseResource {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
+    private static final ProductValidator VALIDATOR = new ProductValidator();
+    private static final Type PRODUCT_LIST = new GenericType<List<Product>>() {
+    }.getType();
+    private static final List<Variant> LIST_VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_JSON_TYPE,
+            WarehouseMediaType.APPLICATION_PRODUCTS_TYPE, WarehouseMediaType.APPLICATION_NDJSON_TYPE).build();
+
     private WarehouseService warehouse;
+    private ResponseCache cache;
+    private EventStreams streams;
 
     public WarehouseResource() {
     }
 
-    @Inject
     public WarehouseResource(WarehouseService warehouse) {
+        this(warehouse, new ResponseCache());
+    }
+
+    public WarehouseResource(WarehouseService warehouse, ResponseCache cache) {
+        this(warehouse, cache, new EventStreams());
+    }
+
+    @Inject
+    public WarehouseResource(WarehouseService warehouse, ResponseCache cache, EventStreams streams) {
         this.warehouse = warehouse;
+        this.cache = cache;
+        this.streams = streams;
     }
 
 
+    /**
+     * Answers with JSON or, if the client prefers it, {@link WarehouseMediaType#APPLICATION_PRODUCTS} or
+     * newline-delimited JSON. Newline-delimited JSON streams the whole catalogue one product at a time and ignores
+     * paging and validators.
+     */
     @GET
     @Path("/products")
-    public Response getAllProducts() {
-        List<Product> products = warehouse.getAllProducts();
-        return Response.ok(products).build();
+    @Produces({MediaType.APPLICATION_JSON, WarehouseMediaType.APPLICATION_PRODUCTS, WarehouseMediaType.APPLICATION_NDJSON})
+    @Expensive
+    public Response getAllProducts(@QueryParam("limit") Integer limit,
+                                   @QueryParam("after") String after,
+                                   @Context UriInfo uriInfo,
+                                   @Context Request request,
+                                   @Context Providers providers) {
+        Variant variant = request.selectVariant(LIST_VARIANTS);
+        MediaType mediaType = variant == null ? MediaType.APPLICATION_JSON_TYPE : variant.getMediaType();
+        if (mediaType.isCompatible(WarehouseMediaType.APPLICATION_NDJSON_TYPE)) {
+            return Response.ok(new ProductStreamingOutput(warehouse.iterateAllProducts(), providers), mediaType)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .build();
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        boolean binary = mediaType.isCompatible(WarehouseMediaType.APPLICATION_PRODUCTS_TYPE);
+        ModificationStamp stamp = warehouse.getCatalogueStamp();
+        EntityTag tag = binary ? EntityTags.binary(EntityTags.catalogue(stamp)) : EntityTags.catalogue(stamp);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.cacheControl(revalidate()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        if (limit == null && after == null) {
+            String key = binary ? "all:binary" : "all";
+            if (!cache.fits(key, warehouse.getProductCount())) {
+                // too large to cache, so let the provider write it straight to the client instead of into memory
+                return validated(Response.ok(new GenericEntity<>(warehouse.getAllProducts(), PRODUCT_LIST), mediaType),
+                        tag, stamp).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+            }
+            byte[] products = cache.get(key, stamp.counter(), PRODUCT_LIST, mediaType, warehouse::getAllProducts, providers);
+            return validated(Response.ok(products, mediaType), tag, stamp).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+        }
+        List<Product> page = warehouse.getProductsPage(after, pageSize);
+        Response.ResponseBuilder response = validated(
+                Response.ok(new GenericEntity<>(page, PRODUCT_LIST), mediaType), tag, stamp)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (page.size() == pageSize) {
+            response.link(uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", page.get(page.size() - 1).id())
+                    .replaceQueryParam("limit", pageSize)
+                    .build(), "next");
+        }
+        return response.build();
+    }
+
+    @GET
+    @Path("/products/search")
+    public Response searchProducts(@QueryParam("q") String query,
+                                   @QueryParam("category") String category,
+                                   @QueryParam("minRating") @DefaultValue("0") int minRating,
+                                   @QueryParam("limit") Integer limit) {
+        int resultSize = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        if (query == null || query.isBlank() || resultSize < 1 || resultSize > MAX_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        Category cat = null;
+        if (category != null) {
+            try {
+                cat = Category.valueOf(category.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+        }
+        return Response.ok(warehouse.searchProducts(query, cat, minRating, resultSize)).build();
+    }
+
+    @GET
+    @Path("/products/query")
+    @Expensive
+    public Response queryProducts(@QueryParam("category") String category,
+                                  @QueryParam("minRating") Integer minRating,
+                                  @QueryParam("maxRating") Integer maxRating,
+                                  @QueryParam("createdFrom") String createdFrom,
+                                  @QueryParam("createdTo") String createdTo,
+                                  @QueryParam("modifiedFrom") String modifiedFrom,
+                                  @QueryParam("modifiedTo") String modifiedTo,
+                                  @QueryParam("prefix") String prefix,
+                                  @QueryParam("sort") @DefaultValue("id") String sort,
+                                  @QueryParam("limit") Integer limit) {
+        int resultSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (resultSize < 1 || resultSize > MAX_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        boolean descending = sort.startsWith("-");
+        ProductQuery query;
+        try {
+            query = new ProductQuery(
+                    category == null ? null : Category.valueOf(category.toUpperCase()),
+                    minRating,
+                    maxRating,
+                    createdFrom == null ? null : LocalDate.parse(createdFrom),
+                    createdTo == null ? null : LocalDate.parse(createdTo),
+                    modifiedFrom == null ? null : LocalDate.parse(modifiedFrom),
+                    modifiedTo == null ? null : LocalDate.parse(modifiedTo),
+                    prefix,
+                    ProductQuery.Sort.valueOf(sort.substring(descending ? 1 : 0).toUpperCase()),
+                    descending,
+                    resultSize);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        QueryResult result = warehouse.query(query);
+        return Response.ok(result.products()).header("X-Query-Plan", result.plan()).build();
+    }
+
+    @GET
+    @Path("/analytics/top-rated")
+    public Response getTopRated(@QueryParam("from") String from,
+                                @QueryParam("to") String to,
+                                @QueryParam("category") String category,
+                                @QueryParam("limit") Integer limit) {
+        int resultSize = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        Window window = Window.parse(from, to, category);
+        if (window == null || resultSize < 1 || resultSize > MAX_PAGE_SIZE) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        return Response.ok(warehouse.getTopRated(window.from(), window.to(), window.category(), resultSize)).build();
+    }
+
+    @GET
+    @Path("/analytics/rating-histogram")
+    public Response getRatingHistogram(@QueryParam("from") String from,
+                                       @QueryParam("to") String to,
+                                       @QueryParam("category") String category) {
+        Window window = Window.parse(from, to, category);
+        if (window == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        return Response.ok(warehouse.getRatingHistogram(window.from(), window.to(), window.category())).build();
+    }
+
+    @GET
+    @Path("/analytics/created-per-day")
+    public Response getCreatedPerDay(@QueryParam("from") String from,
+                                     @QueryParam("to") String to,
+                                     @QueryParam("category") String category) {
+        Window window = Window.parse(from, to, category);
+        if (window == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        return Response.ok(warehouse.getCreatedPerDay(window.from(), window.to(), window.category())).build();
+    }
+
+    /**
+     * Inclusive creation date window of the analytics endpoints. Every part is optional.
+     */
+    private record Window(LocalDate from, LocalDate to, Category category) {
+        /**
+         * Returns null if a parameter is malformed or the window ends before it starts.
+         */
+        static Window parse(String from, String to, String category) {
+            try {
+                Window window = new Window(
+                        from == null ? null : LocalDate.parse(from),
+                        to == null ? null : LocalDate.parse(to),
+                        category == null ? null : Category.valueOf(category.toUpperCase()));
+                return window.from() != null && window.to() != null && window.from().isAfter(window.to()) ? null : window;
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Streams add and modify events. A client resumes with the standard {@code Last-Event-ID} header or the
+     * {@code after} parameter; without either it only receives events written after it connected. Answers
+     * 503 Service Unavailable while {@link EventStreams} has no room for another subscriber.
+     */
+    @GET
+    @Path("/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamEvents(@HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+                             @QueryParam("after") Long after,
+                             @Context SseEventSink sink,
+                             @Context Sse sse) {
+        Long resumeAfter = after;
+        if (lastEventId != null) {
+            try {
+                resumeAfter = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Last-Event-ID must be a sequence number");
+            }
+        }
+        if (!streams.start(new ProductEventStream(warehouse, sink, sse, resumeAfter))) {
+            throw new ServiceUnavailableException(EventStreams.RETRY_AFTER_SECONDS);
+        }
     }
 
     @GET
     @Path("/products/{id}")
-    public Response getProductById(@PathParam("id") @Valid String id) {
-        Optional<Product> product = warehouse.getProductById(id);
+    public Response getProductById(@PathParam("id") @Valid String id,
+                                   @Context Request request,
+                                   @Context Providers providers) {
+        Optional<VersionedProduct> product = warehouse.getVersionedProduct(id);
         if (product.isPresent()) {
-            return Response.ok(product.get()).build();
+            EntityTag tag = EntityTags.product(product.get().version());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return notModified.cacheControl(revalidate()).build();
+            }
+            byte[] body = cache.get("product:" + id, product.get().version(), Product.class,
+                    product.get()::product, providers);
+            return Response.ok(body, MediaType.APPLICATION_JSON_TYPE)
+                    .tag(tag)
+                    .cacheControl(revalidate())
+                    .build();
         }
         return Response.status(Response.Status.NOT_FOUND).build();
     }
 
+    @PUT
+    @Path("/products/{id}")
+    public Response modifyProduct(@PathParam("id") String id,
+                                  @Valid ProductUpdate update,
+                                  @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+                                  @Context Request request) {
+        Optional<VersionedProduct> current = warehouse.getVersionedProduct(id);
+        if (current.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        EntityTag tag = EntityTags.product(current.get().version());
+        Response.ResponseBuilder failed = request.evaluatePreconditions(tag);
+        if (failed != null) {
+            return failed.build();
+        }
+        long expectedVersion = ifMatch == null ? ProductStore.ANY_VERSION : current.get().version();
+        try {
+            Optional<VersionedProduct> modified = warehouse.modifyProduct(
+                    id, update.name(), update.category(), update.rating(), expectedVersion);
+            return modified
+                    .map(product -> Response.ok(product.product()).tag(EntityTags.product(product.version())))
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND))
+                    .build();
+        } catch (VersionConflictException e) {
+            return Response.status(Response.Status.PRECONDITION_FAILED)
+                    .tag(EntityTags.product(e.getCurrentVersion()))
+                    .build();
+        }
+    }
+
     @GET
     @Path("/products/category/{category}")
-    public Response getProductsByCategory(@PathParam("category") @Valid String category) {
+    public Response getProductsByCategory(@PathParam("category") @Valid String category,
+                                          @Context Request request,
+                                          @Context Providers providers) {
         Category cat;
         try {
             cat = Category.valueOf(category.toUpperCase());
-            return Response.ok(warehouse.getProductsByCategory(cat)).build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
+        ModificationStamp stamp = warehouse.getCategoryStamp(cat);
+        EntityTag tag = EntityTags.category(cat, stamp);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.cacheControl(revalidate()).build();
+        }
+        byte[] products = cache.get("category:" + cat, stamp.counter(), PRODUCT_LIST,
+                () -> warehouse.getProductsByCategory(cat), providers);
+        return validated(Response.ok(products, MediaType.APPLICATION_JSON_TYPE), tag, stamp).build();
+    }
+
+    /**
+     * Adds validators to a response. The stamp must be read before the entity so the tag is never newer than it.
+     */
+    private static Response.ResponseBuilder validated(Response.ResponseBuilder response, EntityTag tag, ModificationStamp stamp) {
+        return response
+                .tag(tag)
+                .lastModified(Date.from(stamp.lastModified()))
+                .cacheControl(revalidate());
+    }
+
+    /**
+     * Validates here rather than with {@code @Valid} so that valid products skip Bean Validation. Throws the same
+     * {@link ConstraintViolationException} as {@code @Valid} would for invalid ones.
+     */
+    static void requireValid(Product product) {
+        if (product != null && !VALIDATOR.isValid(product)) {
+            Set<ConstraintViolation<Product>> violations = VALIDATOR.violations(product);
+            if (!violations.isEmpty()) {
+                throw new ConstraintViolationException(violations);
+            }
+        }
+    }
+
+    private static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        cacheControl.setNoTransform(false);
+        return cacheControl;
     }
 
     @POST
     @Path("/products")
-    @Consumes(MediaType.APPLICATION_JSON)
-    public Response addProduct(@Valid Product product) {
+    @Consumes({MediaType.APPLICATION_JSON, WarehouseMediaType.APPLICATION_PRODUCTS})
+    public Response addProduct(Product product) {
+        if (product == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        requireValid(product);
         try {
             warehouse.addProduct(product);
             return Response.status(Response.Status.CREATED).build();
@@ -70,4 +407,50 @@ public class WarehouseResource {
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
     }
+
+    @POST
+    @Path("/products/batch")
+    @Consumes({MediaType.APPLICATION_JSON, WarehouseMediaType.APPLICATION_PRODUCTS})
+    @Expensive
+    public Response addProducts(List<Product> products) {
+        if (products == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        return Response.ok(warehouse.addProducts(products)).build();
+    }
+
+    @POST
+    @Path("/products/batch")
+    @Consumes(WarehouseMediaType.APPLICATION_NDJSON)
+    @Expensive
+    public Response addProducts(InputStream body, @Context Providers providers) throws IOException {
+        Annotation[] annotations = new Annotation[0];
+        MessageBodyReader<Product> reader = providers.getMessageBodyReader(
+                Product.class, Product.class, annotations, MediaType.APPLICATION_JSON_TYPE);
+
+        List<Product> products = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        List<BatchResult.BatchError> errors = new ArrayList<>();
+        BufferedReader lineReader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = lineReader.readLine()) != null) {
+            if (!line.isBlank()) {
+                try {
+                    products.add(reader.readFrom(Product.class, Product.class, annotations, MediaType.APPLICATION_JSON_TYPE,
+                            new MultivaluedHashMap<>(), new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8))));
+                    lines.add(lineNumber);
+                } catch (IOException | RuntimeException e) {
+                    errors.add(new BatchResult.BatchError(lineNumber, null, "Malformed product"));
+                }
+            }
+            lineNumber++;
+        }
+
+        BatchResult result = warehouse.addProducts(products);
+        result.errors().forEach(error -> errors.add(
+                new BatchResult.BatchError(lines.get(error.index()), error.id(), error.message())));
+        errors.sort(Comparator.comparingInt(BatchResult.BatchError::index));
+        return Response.ok(new BatchResult(result.accepted(), errors)).build();
+    }
 }
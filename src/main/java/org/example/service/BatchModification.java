@@ -0,0 +1,10 @@
+package org.example.service;
+
+import java.util.Map;
+
+/**
+ * Outcome of {@link WarehouseService#modifyProducts}: the new state of every id that was modified and the failure
+ * of every id whose modification was not applied or not made durable. Ids in neither map do not exist.
+ */
+public record BatchModification(Map<String, VersionedProduct> modified, Map<String, RuntimeException> failed) {
+}
@@ -0,0 +1,9 @@
+package org.example.service;
+
+import java.util.List;
+
+public record BatchResult(int accepted, List<BatchError> errors) {
+
+    public record BatchError(int index, String id, String message) {
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.util.*;
+
+class CategoryIndex implements ProductIndex {
+    static final Comparator<Product> BY_NAME = Comparator
+            .comparing(Product::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Product::id);
+
+    private final Map<Category, NavigableSet<Product>> byCategory = new EnumMap<>(Category.class);
+
+    CategoryIndex() {
+        for (Category category : Category.values()) {
+            byCategory.put(category, new TreeSet<>(BY_NAME));
+        }
+    }
+
+    @Override
+    public void add(Product product) {
+        byCategory.get(product.category()).add(product);
+    }
+
+    @Override
+    public void remove(Product product) {
+        byCategory.get(product.category()).remove(product);
+    }
+
+    List<Product> products(Category category) {
+        return new ArrayList<>(byCategory.get(category));
+    }
+
+    NavigableSet<Product> view(Category category) {
+        return Collections.unmodifiableNavigableSet(byCategory.get(category));
+    }
+
+    /**
+     * Returns the range of a name-ordered set whose names start with {@code prefix}, ignoring case.
+     */
+    static NavigableSet<Product> withNamePrefix(NavigableSet<Product> byName, String prefix) {
+        return byName.subSet(probe(prefix), true, probe(prefix + Character.MAX_VALUE), false);
+    }
+
+    /**
+     * Merges name-ordered sets into one iteration in name order. A product in several sets is returned once per
+     * set, always consecutively.
+     */
+    static Iterator<Product> inNameOrder(Collection<NavigableSet<Product>> sets) {
+        if (sets.size() == 1) {
+            return sets.iterator().next().iterator();
+        }
+        record Head(Product product, Iterator<Product> rest) {
+        }
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sets.size()),
+                Comparator.comparing(Head::product, BY_NAME));
+        for (NavigableSet<Product> set : sets) {
+            Iterator<Product> iterator = set.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Product next() {
+                Head head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.rest().hasNext()) {
+                    heads.add(new Head(head.rest().next(), head.rest()));
+                }
+                return head.product();
+            }
+        };
+    }
+
+    private static Product probe(String name) {
+        return new Product("", name, null, 0, null, null);
+    }
+}
@@ -0,0 +1,287 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Struct-of-arrays product storage. Each product is a row across primitive columns: epoch days as {@code int},
+ * rating and category ordinal as {@code byte}, and the name as a code into a reference-counted dictionary, so
+ * products sharing a name share one {@link String}. Rows are never removed, only overwritten in place, and ids
+ * are found through an open-addressing hash table of row numbers. {@link Product} records are only built for
+ * rows that are returned.
+ * <p>
+ * Id order is kept as a sorted array of rows plus a small sorted set of recent inserts, which is merged into the
+ * array once it grows past a fraction of the table.
+ * <p>
+ * Not thread-safe: reads must hold the store's read lock.
+ */
+class ColumnarTable implements ProductTable {
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int MIN_MERGE = 1024;
+
+    private String[] ids = new String[16];
+    private int[] names = new int[16];
+    private byte[] categories = new byte[16];
+    private byte[] ratings = new byte[16];
+    private int[] creationDays = new int[16];
+    private int[] modifiedDays = new int[16];
+    private long[] versions = new long[16];
+    private int rows;
+
+    private int[] slots = new int[32];
+    private final NameDictionary dictionary = new NameDictionary();
+
+    private int[] sorted = new int[0];
+    private final NavigableMap<String, Integer> recent = new TreeMap<>();
+
+    /**
+     * Tests a row by its primitive columns.
+     */
+    @FunctionalInterface
+    interface RowFilter {
+        boolean test(int category, int rating, int creationDay, int modifiedDay);
+    }
+
+    @Override
+    public VersionedProduct get(String id) {
+        int row = find(id);
+        return row < 0 ? null : new VersionedProduct(product(row), versions[row]);
+    }
+
+    @Override
+    public void check(Product product) {
+        if (product.rating() < Byte.MIN_VALUE || product.rating() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Rating out of range: " + product.rating());
+        }
+    }
+
+    @Override
+    public void put(VersionedProduct versioned) {
+        Product product = versioned.product();
+        check(product);
+        int row = find(product.id());
+        if (row < 0) {
+            row = append(product.id());
+        } else {
+            dictionary.release(names[row]);
+        }
+        names[row] = dictionary.intern(product.name());
+        categories[row] = (byte) product.category().ordinal();
+        ratings[row] = (byte) product.rating();
+        creationDays[row] = Math.toIntExact(product.creationDate().toEpochDay());
+        modifiedDays[row] = Math.toIntExact(product.lastModifiedDate().toEpochDay());
+        versions[row] = versioned.version();
+    }
+
+    @Override
+    public int size() {
+        return rows;
+    }
+
+    @Override
+    public boolean concurrent() {
+        return false;
+    }
+
+    /**
+     * Returns the products whose columns pass {@code filter} and, if given, whose name passes {@code name}, in
+     * insertion order. Large tables are scanned in parallel chunks.
+     */
+    List<Product> select(RowFilter filter, Predicate<String> name) {
+        return ParallelScan.<List<Product>>reduce(rows, ArrayList::new,
+                (partial, from, to) -> scan(filter, name, from, to, partial::add), ParallelScan::concat);
+    }
+
+    /**
+     * Passes the matching products of rows {@code [from, to)} to {@code sink}. The name dictionary is only read,
+     * so chunks of one table can be scanned concurrently as long as no write runs.
+     */
+    void scan(RowFilter filter, Predicate<String> name, int from, int to, Consumer<Product> sink) {
+        for (int row = from; row < to; row++) {
+            if (filter.test(categories[row], ratings[row], creationDays[row], modifiedDays[row])
+                    && (name == null || name.test(dictionary.name(names[row])))) {
+                sink.accept(product(row));
+            }
+        }
+    }
+
+    private Product product(int row) {
+        return new Product(
+                ids[row],
+                dictionary.name(names[row]),
+                CATEGORIES[categories[row]],
+                ratings[row],
+                LocalDate.ofEpochDay(creationDays[row]),
+                LocalDate.ofEpochDay(modifiedDays[row])
+        );
+    }
+
+    private int append(String id) {
+        if (rows == ids.length) {
+            int capacity = rows * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            creationDays = Arrays.copyOf(creationDays, capacity);
+            modifiedDays = Arrays.copyOf(modifiedDays, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+        int row = rows++;
+        ids[row] = id;
+        if (rows * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            slots[emptySlot(id)] = row + 1;
+        }
+        recent.put(id, row);
+        if (recent.size() > Math.max(MIN_MERGE, rows / 16)) {
+            mergeRecent();
+        }
+        return row;
+    }
+
+    private int find(String id) {
+        int mask = slots.length - 1;
+        for (int slot = mix(id.hashCode()) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (ids[slots[slot] - 1].equals(id)) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int emptySlot(String id) {
+        int mask = slots.length - 1;
+        int slot = mix(id.hashCode()) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int row = 0; row < rows; row++) {
+            slots[emptySlot(ids[row])] = row + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void mergeRecent() {
+        int[] merged = new int[sorted.length + recent.size()];
+        int i = 0;
+        int out = 0;
+        for (Map.Entry<String, Integer> entry : recent.entrySet()) {
+            while (i < sorted.length && ids[sorted[i]].compareTo(entry.getKey()) < 0) {
+                merged[out++] = sorted[i++];
+            }
+            merged[out++] = entry.getValue();
+        }
+        System.arraycopy(sorted, i, merged, out, sorted.length - i);
+        sorted = merged;
+        recent.clear();
+    }
+
+    @Override
+    public Iterator<VersionedProduct> iterator(String afterId) {
+        int start = 0;
+        if (afterId != null) {
+            int low = 0;
+            int high = sorted.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ids[sorted[middle]].compareTo(afterId) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            start = low;
+        }
+        Iterator<Integer> pending = (afterId == null ? recent : recent.tailMap(afterId, false)).values().iterator();
+        int first = start;
+        return new Iterator<>() {
+            private int next = first;
+            private int pendingRow = pending.hasNext() ? pending.next() : -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < sorted.length || pendingRow >= 0;
+            }
+
+            @Override
+            public VersionedProduct next() {
+                int row;
+                if (pendingRow >= 0 && (next >= sorted.length || ids[pendingRow].compareTo(ids[sorted[next]]) < 0)) {
+                    row = pendingRow;
+                    pendingRow = pending.hasNext() ? pending.next() : -1;
+                } else if (next < sorted.length) {
+                    row = sorted[next++];
+                } else {
+                    throw new NoSuchElementException();
+                }
+                return new VersionedProduct(product(row), versions[row]);
+            }
+        };
+    }
+
+    /**
+     * Distinct names, each stored once and addressed by an int code. Codes of names no longer used by any row
+     * are reused.
+     */
+    private static class NameDictionary {
+        private String[] values = new String[16];
+        private int[] references = new int[16];
+        private final Map<String, Integer> codes = new HashMap<>();
+        private int[] free = new int[16];
+        private int freeCount;
+        private int next;
+
+        int intern(String name) {
+            Integer existing = codes.get(name);
+            int code;
+            if (existing != null) {
+                code = existing;
+            } else {
+                if (freeCount > 0) {
+                    code = free[--freeCount];
+                } else {
+                    code = next++;
+                    if (code == values.length) {
+                        values = Arrays.copyOf(values, code * 2);
+                        references = Arrays.copyOf(references, code * 2);
+                    }
+                }
+                values[code] = name;
+                codes.put(name, code);
+            }
+            references[code]++;
+            return code;
+        }
+
+        void release(int code) {
+            if (--references[code] == 0) {
+                codes.remove(values[code]);
+                values[code] = null;
+                if (freeCount == free.length) {
+                    free = Arrays.copyOf(free, freeCount * 2);
+                }
+                free[freeCount++] = code;
+            }
+        }
+
+        String name(int code) {
+            return values[code];
+        }
+    }
+}
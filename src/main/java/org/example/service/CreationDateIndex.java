@@ -0,0 +1,46 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+import java.time.LocalDate;
+import java.util.*;
+
+class CreationDateIndex implements ProductIndex {
+    private final NavigableMap<LocalDate, Map<String, Product>> byDate = new TreeMap<>();
+
+    @Override
+    public void add(Product product) {
+        byDate.computeIfAbsent(product.creationDate(), date -> new LinkedHashMap<>()).put(product.id(), product);
+    }
+
+    @Override
+    public void remove(Product product) {
+        Map<String, Product> day = byDate.get(product.creationDate());
+        if (day != null && day.remove(product.id()) != null && day.isEmpty()) {
+            byDate.remove(product.creationDate());
+        }
+    }
+
+    List<Product> createdAfter(LocalDate date) {
+        List<Product> result = new ArrayList<>();
+        byDate.tailMap(date, false).values().forEach(day -> result.addAll(day.values()));
+        return result;
+    }
+
+    /**
+     * Days with products created from {@code from} to {@code to} inclusive, in date order. Either bound may be null.
+     */
+    Collection<Map<String, Product>> between(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return List.of();
+        }
+        NavigableMap<LocalDate, Map<String, Product>> days = byDate;
+        if (from != null) {
+            days = days.tailMap(from, true);
+        }
+        if (to != null) {
+            days = days.headMap(to, true);
+        }
+        return days.values();
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.service;
+
+import java.time.LocalDate;
+
+public record DailyCount(LocalDate date, int count) {
+}
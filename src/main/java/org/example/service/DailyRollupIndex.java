@@ -0,0 +1,169 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Counts and product ids per creation day, category and rating, so questions about a date window cost one visit
+ * per day with products instead of one per product. Ratings outside {@code [0, MAX_RATING]} are counted in an
+ * extra slot per category, so they add to the daily totals without appearing under any rating.
+ */
+class DailyRollupIndex implements ProductIndex {
+    static final int MAX_RATING = 10;
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int OUT_OF_RANGE = MAX_RATING + 1;
+    private static final int CELLS = CATEGORIES.length * (OUT_OF_RANGE + 1);
+
+    private final NavigableMap<Long, Day> days = new TreeMap<>();
+
+    private static class Day {
+        final int[] counts = new int[CELLS];
+        @SuppressWarnings("unchecked")
+        final NavigableSet<String>[] ids = new NavigableSet[CELLS];
+        int total;
+    }
+
+    @Override
+    public void add(Product product) {
+        Day day = days.computeIfAbsent(product.creationDate().toEpochDay(), d -> new Day());
+        int cell = cell(product.category(), product.rating());
+        day.counts[cell]++;
+        day.total++;
+        if (day.ids[cell] == null) {
+            day.ids[cell] = new TreeSet<>();
+        }
+        day.ids[cell].add(product.id());
+    }
+
+    @Override
+    public void remove(Product product) {
+        long epochDay = product.creationDate().toEpochDay();
+        Day day = days.get(epochDay);
+        int cell = cell(product.category(), product.rating());
+        if (day == null || day.ids[cell] == null || !day.ids[cell].remove(product.id())) {
+            return;
+        }
+        day.counts[cell]--;
+        if (day.ids[cell].isEmpty()) {
+            day.ids[cell] = null;
+        }
+        if (--day.total == 0) {
+            days.remove(epochDay);
+        }
+    }
+
+    /**
+     * Ids of products rated {@code rating} created in the window, by creation day and then id. {@code category}
+     * may be null for all categories and either bound may be null for an open window.
+     */
+    List<String> ids(LocalDate from, LocalDate to, Category category, int rating) {
+        List<String> result = new ArrayList<>();
+        for (Day day : window(from, to).values()) {
+            collect(day, category, rating, result);
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the {@code limit} best rated products created in the window, highest rating first, then newest
+     * first, then by id.
+     */
+    List<String> topRated(LocalDate from, LocalDate to, Category category, int limit) {
+        List<String> result = new ArrayList<>();
+        Collection<Day> newestFirst = window(from, to).descendingMap().values();
+        for (int rating = MAX_RATING; rating >= 0 && result.size() < limit; rating--) {
+            for (Day day : newestFirst) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                collect(day, category, rating, result);
+            }
+        }
+        return result.size() > limit ? List.copyOf(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Number of products per rating created in the window, indexed by rating.
+     */
+    int[] ratingHistogram(LocalDate from, LocalDate to, Category category) {
+        int[] histogram = new int[MAX_RATING + 1];
+        for (Day day : window(from, to).values()) {
+            for (int rating = 0; rating <= MAX_RATING; rating++) {
+                histogram[rating] += count(day, category, rating);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Number of products created on each day of the window that has any.
+     */
+    List<DailyCount> createdPerDay(LocalDate from, LocalDate to, Category category) {
+        List<DailyCount> result = new ArrayList<>();
+        for (Map.Entry<Long, Day> entry : window(from, to).entrySet()) {
+            int count = 0;
+            if (category == null) {
+                count = entry.getValue().total;
+            } else {
+                for (int rating = 0; rating <= OUT_OF_RANGE; rating++) {
+                    count += count(entry.getValue(), category, rating);
+                }
+            }
+            if (count > 0) {
+                result.add(new DailyCount(LocalDate.ofEpochDay(entry.getKey()), count));
+            }
+        }
+        return result;
+    }
+
+    private NavigableMap<Long, Day> window(LocalDate from, LocalDate to) {
+        NavigableMap<Long, Day> window = days;
+        if (from != null && to != null && from.isAfter(to)) {
+            return Collections.emptyNavigableMap();
+        }
+        if (from != null) {
+            window = window.tailMap(from.toEpochDay(), true);
+        }
+        if (to != null) {
+            window = window.headMap(to.toEpochDay(), true);
+        }
+        return window;
+    }
+
+    private static void collect(Day day, Category category, int rating, List<String> result) {
+        if (category != null) {
+            NavigableSet<String> ids = day.ids[cell(category, rating)];
+            if (ids != null) {
+                result.addAll(ids);
+            }
+            return;
+        }
+        int start = result.size();
+        for (Category each : CATEGORIES) {
+            NavigableSet<String> ids = day.ids[cell(each, rating)];
+            if (ids != null) {
+                result.addAll(ids);
+            }
+        }
+        result.subList(start, result.size()).sort(null);
+    }
+
+    private static int count(Day day, Category category, int rating) {
+        if (category != null) {
+            return day.counts[cell(category, rating)];
+        }
+        int count = 0;
+        for (Category each : CATEGORIES) {
+            count += day.counts[cell(each, rating)];
+        }
+        return count;
+    }
+
+    private static int cell(Category category, int rating) {
+        int slot = rating < 0 || rating > MAX_RATING ? OUT_OF_RANGE : rating;
+        return category.ordinal() * (OUT_OF_RANGE + 1) + slot;
+    }
+}
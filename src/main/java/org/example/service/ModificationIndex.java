@@ -0,0 +1,53 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Modification counters and timestamps for the whole catalogue and per category, backing HTTP validators.
+ */
+class ModificationIndex implements ProductIndex {
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final Clock clock;
+    private final long[] categoryCounters = new long[CATEGORIES.length];
+    private final long[] categoryModified = new long[CATEGORIES.length];
+    private long counter;
+    private long modified;
+
+    ModificationIndex(Clock clock) {
+        this.clock = clock;
+        this.modified = clock.millis();
+        Arrays.fill(categoryModified, modified);
+    }
+
+    @Override
+    public void add(Product product) {
+        touch(product.category());
+    }
+
+    @Override
+    public void remove(Product product) {
+        touch(product.category());
+    }
+
+    private void touch(Category category) {
+        long now = clock.millis();
+        counter++;
+        modified = now;
+        categoryCounters[category.ordinal()] = counter;
+        categoryModified[category.ordinal()] = now;
+    }
+
+    ModificationStamp catalogue() {
+        return new ModificationStamp(counter, Instant.ofEpochMilli(modified));
+    }
+
+    ModificationStamp category(Category category) {
+        return new ModificationStamp(categoryCounters[category.ordinal()], Instant.ofEpochMilli(categoryModified[category.ordinal()]));
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.service;
+
+import java.time.Instant;
+
+/**
+ * Identifies a state of (part of) the catalogue: {@code counter} changes on every write that affects it.
+ */
+public record ModificationStamp(long counter, Instant lastModified) {
+}
@@ -0,0 +1,90 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Scans positions {@code [0, size)} in chunks of {@link #CHUNK_SIZE} as ForkJoin tasks. Each chunk accumulates
+ * into its own partial result and partials are merged left to right, so results stay in position order. Tasks
+ * run in the ForkJoinPool of the calling thread, or the common pool, which lets a caller bound the parallelism by
+ * submitting the scan to its own pool. Scans below the sequential threshold run in the calling thread.
+ */
+final class ParallelScan {
+    static final String THRESHOLD_PROPERTY = "warehouse.scan.sequentialThreshold";
+    static final int CHUNK_SIZE = 4096;
+    private static final int SEQUENTIAL_THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 32_768);
+
+    private ParallelScan() {
+    }
+
+    @FunctionalInterface
+    interface RangeAccumulator<A> {
+        void accumulate(A partial, int from, int to);
+    }
+
+    static <A> A reduce(int size, Supplier<A> identity, RangeAccumulator<A> accumulator, BinaryOperator<A> merge) {
+        if (size < SEQUENTIAL_THRESHOLD) {
+            A result = identity.get();
+            accumulator.accumulate(result, 0, size);
+            return result;
+        }
+        return new Chunk<>(0, size, identity, accumulator, merge).invoke();
+    }
+
+    /**
+     * Returns the elements of {@code products}, which must support fast random access, that pass {@code filter}.
+     */
+    static List<Product> filter(List<Product> products, Predicate<Product> filter) {
+        return ParallelScan.<List<Product>>reduce(products.size(), ArrayList::new, (partial, from, to) -> {
+            for (int i = from; i < to; i++) {
+                Product product = products.get(i);
+                if (filter.test(product)) {
+                    partial.add(product);
+                }
+            }
+        }, ParallelScan::concat);
+    }
+
+    static <T> List<T> concat(List<T> left, List<T> right) {
+        left.addAll(right);
+        return left;
+    }
+
+    private static class Chunk<A> extends RecursiveTask<A> {
+        private final int from;
+        private final int to;
+        private final Supplier<A> identity;
+        private final RangeAccumulator<A> accumulator;
+        private final BinaryOperator<A> merge;
+
+        Chunk(int from, int to, Supplier<A> identity, RangeAccumulator<A> accumulator, BinaryOperator<A> merge) {
+            this.from = from;
+            this.to = to;
+            this.identity = identity;
+            this.accumulator = accumulator;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= CHUNK_SIZE) {
+                A partial = identity.get();
+                accumulator.accumulate(partial, from, to);
+                return partial;
+            }
+            // split on a chunk boundary so every leaf but the last covers a whole chunk
+            int chunks = (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            int middle = from + chunks / 2 * CHUNK_SIZE;
+            Chunk<A> left = new Chunk<>(from, middle, identity, accumulator, merge);
+            left.fork();
+            A right = new Chunk<>(middle, to, identity, accumulator, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+/**
+ * A committed write, numbered in commit order starting at 1.
+ */
+public record ProductEvent(long sequence, Type type, Product product, long version) {
+    public enum Type {
+        ADDED, MODIFIED
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring buffer of the most recent {@link ProductEvent}s. Events are appended by the {@link ProductStore}
+ * under its write lock, so sequence numbers follow commit order. Readers never block writers: they read slots
+ * without locking and detect that a slot was overwritten by its sequence number, which means the reader fell
+ * more than a full buffer behind.
+ */
+public class ProductEventLog {
+    public static final String CAPACITY_PROPERTY = "warehouse.events.capacity";
+
+    private final ProductEvent[] ring;
+    private final int mask;
+    private volatile long lastSequence;
+
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition appended = waitLock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public ProductEventLog() {
+        this(Integer.getInteger(CAPACITY_PROPERTY, 1 << 16));
+    }
+
+    /**
+     * {@code capacity} is rounded up to a power of two.
+     */
+    public ProductEventLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new ProductEvent[size];
+        this.mask = size - 1;
+    }
+
+    void append(ProductEvent.Type type, VersionedProduct product) {
+        long sequence = lastSequence + 1;
+        ring[(int) (sequence & mask)] = new ProductEvent(sequence, type, product.product(), product.version());
+        lastSequence = sequence;
+        if (waiters.get() > 0) {
+            waitLock.lock();
+            try {
+                appended.signalAll();
+            } finally {
+                waitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sequence number of the newest event, or 0 if nothing was written yet.
+     */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns up to {@code max} events with a sequence number above {@code after}, oldest first, or an empty
+     * optional if some of them were already overwritten or {@code after} was never written by this log, as for a
+     * sequence number from before a restart.
+     */
+    public Optional<List<ProductEvent>> readAfter(long after, int max) {
+        long last = lastSequence;
+        if (after > last) {
+            return Optional.empty();
+        }
+        if (after == last) {
+            return Optional.of(List.of());
+        }
+        if (last - after > ring.length) {
+            return Optional.empty();
+        }
+        long end = Math.min(last, after + max);
+        List<ProductEvent> events = new ArrayList<>((int) (end - after));
+        for (long sequence = after + 1; sequence <= end; sequence++) {
+            ProductEvent event = ring[(int) (sequence & mask)];
+            if (event == null || event.sequence() != sequence) {
+                return Optional.empty();
+            }
+            events.add(event);
+        }
+        return Optional.of(events);
+    }
+
+    /**
+     * Waits until an event after {@code after} exists or the timeout elapses. Returns whether one exists.
+     */
+    public boolean awaitAfter(long after, long timeout, TimeUnit unit) throws InterruptedException {
+        if (lastSequence > after) {
+            return true;
+        }
+        long remaining = unit.toNanos(timeout);
+        waiters.incrementAndGet();
+        waitLock.lock();
+        try {
+            while (lastSequence <= after && remaining > 0) {
+                remaining = appended.awaitNanos(remaining);
+            }
+            return lastSequence > after;
+        } finally {
+            waitLock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+/**
+ * Secondary structure kept in sync by {@link ProductStore}. Called while the store holds its write lock.
+ */
+public interface ProductIndex {
+    void add(Product product);
+
+    void remove(Product product);
+}
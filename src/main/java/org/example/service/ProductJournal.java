@@ -0,0 +1,31 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+/**
+ * Receives the new state of every product written to a {@link ProductStore}, in commit order.
+ * Called under the store's write lock before the write becomes visible; throwing aborts the write.
+ */
+public interface ProductJournal {
+    ProductJournal NONE = product -> {
+    };
+
+    void append(Product product);
+
+    /**
+     * Appends to {@code first} and then to {@code second}, so a write {@code first} rejects never reaches
+     * {@code second}.
+     */
+    static ProductJournal both(ProductJournal first, ProductJournal second) {
+        if (first == NONE) {
+            return second;
+        }
+        if (second == NONE) {
+            return first;
+        }
+        return product -> {
+            first.append(product);
+            second.append(product);
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * Conjunction of optional filters with a sort order and a result limit. Ranges are inclusive and a null bound is
+ * open.
+ */
+public record ProductQuery(
+        Category category,
+        Integer minRating,
+        Integer maxRating,
+        LocalDate createdFrom,
+        LocalDate createdTo,
+        LocalDate modifiedFrom,
+        LocalDate modifiedTo,
+        String namePrefix,
+        Sort sort,
+        boolean descending,
+        int limit
+) {
+    public enum Sort {
+        ID(Comparator.comparing(Product::id)),
+        NAME(CategoryIndex.BY_NAME),
+        RATING(Comparator.comparingInt(Product::rating)),
+        CREATED(Comparator.comparing(Product::creationDate)),
+        MODIFIED(Comparator.comparing(Product::lastModifiedDate));
+
+        private final Comparator<Product> key;
+
+        Sort(Comparator<Product> key) {
+            this.key = key;
+        }
+
+        /**
+         * Compares only the sort key, without the id tie-break.
+         */
+        Comparator<Product> key() {
+            return key;
+        }
+    }
+
+    public ProductQuery {
+        if (sort == null) {
+            sort = Sort.ID;
+        }
+        if (namePrefix != null && namePrefix.isEmpty()) {
+            namePrefix = null;
+        }
+    }
+
+    boolean matches(Product product) {
+        return (category == null || product.category() == category)
+                && (minRating == null || product.rating() >= minRating)
+                && (maxRating == null || product.rating() <= maxRating)
+                && within(product.creationDate(), createdFrom, createdTo)
+                && within(product.lastModifiedDate(), modifiedFrom, modifiedTo)
+                && (namePrefix == null || product.name().regionMatches(true, 0, namePrefix, 0, namePrefix.length()));
+    }
+
+    /**
+     * The filters other than the name prefix, over the primitive columns of a {@link ColumnarTable}.
+     */
+    ColumnarTable.RowFilter columnFilter() {
+        int categoryOrdinal = category == null ? -1 : category.ordinal();
+        int min = minRating == null ? Integer.MIN_VALUE : minRating;
+        int max = maxRating == null ? Integer.MAX_VALUE : maxRating;
+        long createdMin = createdFrom == null ? Long.MIN_VALUE : createdFrom.toEpochDay();
+        long createdMax = createdTo == null ? Long.MAX_VALUE : createdTo.toEpochDay();
+        long modifiedMin = modifiedFrom == null ? Long.MIN_VALUE : modifiedFrom.toEpochDay();
+        long modifiedMax = modifiedTo == null ? Long.MAX_VALUE : modifiedTo.toEpochDay();
+        return (c, rating, created, modified) -> (categoryOrdinal < 0 || c == categoryOrdinal)
+                && rating >= min && rating <= max
+                && created >= createdMin && created <= createdMax
+                && modified >= modifiedMin && modified <= modifiedMax;
+    }
+
+    Predicate<String> nameFilter() {
+        return namePrefix == null ? null : name -> name.regionMatches(true, 0, namePrefix, 0, namePrefix.length());
+    }
+
+    Comparator<Product> order() {
+        Comparator<Product> order = sort.key().thenComparing(Product::id);
+        return descending ? order.reversed() : order;
+    }
+
+    private static boolean within(LocalDate date, LocalDate from, LocalDate to) {
+        return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to));
+    }
+}
@@ -0,0 +1,342 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Primary storage for products, indexed by id.
+ * Writes are serialized and snapshots never observe a half-applied write. With the default object storage point
+ * lookups are lock-free; {@linkplain #columnar() columnar} storage trades that for a much smaller heap footprint.
+ * Registered {@link ProductIndex indexes} are updated under the same write lock and should be queried through
+ * {@link #read(Supplier)}.
+ * <p>
+ * Every product carries a version. A replacement reads, checks the version and writes under one write lock, like
+ * {@link #replaceAll(Map)}: the indexes, the journal and the event log are shared by every id and must see writes
+ * in one order, so a per-id retry loop would buy nothing while the lock is store-wide.
+ */
+public class ProductStore {
+    public static final long ANY_VERSION = -1;
+
+    private static final int CHUNK_SIZE = 512;
+
+    private final ProductTable table;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ProductIndex> indexes;
+    private volatile ProductJournal journal = ProductJournal.NONE;
+    private ProductEventLog events;
+
+    public ProductStore(ProductIndex... indexes) {
+        this(new SkipListTable(), indexes);
+    }
+
+    ProductStore(ProductTable table, ProductIndex... indexes) {
+        this.table = table;
+        this.indexes = List.of(indexes);
+    }
+
+    /**
+     * Returns the columnar table if this store uses one.
+     */
+    ColumnarTable columnar() {
+        return table instanceof ColumnarTable columns ? columns : null;
+    }
+
+    public void attach(ProductJournal journal) {
+        lock.writeLock().lock();
+        try {
+            this.journal = journal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records every later write in {@code events}.
+     */
+    public void publishTo(ProductEventLog events) {
+        lock.writeLock().lock();
+        try {
+            this.events = events;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean insert(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (table.get(product.id()) != null) {
+                return false;
+            }
+            table.check(product);
+            journal.append(product);
+            VersionedProduct inserted = new VersionedProduct(product, 1);
+            table.put(inserted);
+            indexes.forEach(index -> index.add(product));
+            publish(ProductEvent.Type.ADDED, inserted);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts all products under a single write lock, so readers see either none or all of them.
+     * Returns the positions of products that were rejected because their id already existed.
+     */
+    public BitSet insertAll(List<Product> products) {
+        BitSet rejected = new BitSet(products.size());
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                if (table.get(product.id()) != null) {
+                    rejected.set(i);
+                    continue;
+                }
+                table.check(product);
+                journal.append(product);
+                VersionedProduct inserted = new VersionedProduct(product, 1);
+                table.put(inserted);
+                indexes.forEach(index -> index.add(product));
+                publish(ProductEvent.Type.ADDED, inserted);
+            }
+            return rejected;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds products recovered from durable storage under a single write lock. They were journaled and published
+     * when first written, so neither happens again. Products whose id is already stored are skipped.
+     */
+    public void load(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                if (table.get(product.id()) == null) {
+                    table.put(new VersionedProduct(product, 1));
+                    indexes.forEach(index -> index.add(product));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Makes each product the current state of its id under a single write lock, inserting it or replacing
+     * whatever version is stored. Products equal to the stored state are skipped. Used to apply writes that were
+     * already accepted elsewhere, such as on a replication leader.
+     */
+    public void applyAll(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                VersionedProduct current = table.get(product.id());
+                if (current == null) {
+                    table.check(product);
+                    journal.append(product);
+                    VersionedProduct inserted = new VersionedProduct(product, 1);
+                    table.put(inserted);
+                    indexes.forEach(index -> index.add(product));
+                    publish(ProductEvent.Type.ADDED, inserted);
+                } else if (!current.product().equals(product)) {
+                    table.check(product);
+                    journal.append(product);
+                    VersionedProduct next = new VersionedProduct(product, current.version() + 1);
+                    table.put(next);
+                    indexes.forEach(index -> {
+                        index.remove(current.product());
+                        index.add(product);
+                    });
+                    publish(ProductEvent.Type.MODIFIED, next);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Product> replace(String id, UnaryOperator<Product> update) {
+        return replace(id, ANY_VERSION, update).map(VersionedProduct::product);
+    }
+
+    /**
+     * Replaces the product if it is at {@code expectedVersion}, or at any version for {@link #ANY_VERSION}.
+     *
+     * @throws VersionConflictException if the product is at another version
+     */
+    public Optional<VersionedProduct> replace(String id, long expectedVersion, UnaryOperator<Product> update) {
+        lock.writeLock().lock();
+        try {
+            VersionedProduct current = table.get(id);
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (expectedVersion != ANY_VERSION && current.version() != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion, current.version());
+            }
+            Product product = update.apply(current.product());
+            table.check(product);
+            journal.append(product);
+            VersionedProduct next = new VersionedProduct(product, current.version() + 1);
+            table.put(next);
+            indexes.forEach(index -> {
+                index.remove(current.product());
+                index.add(product);
+            });
+            publish(ProductEvent.Type.MODIFIED, next);
+            return Optional.of(next);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies each update to the current state of its id under a single write lock, producing one new version per
+     * id. An update that throws is reported against its id and the others are still applied, so every id is
+     * written once or not at all.
+     */
+    public BatchModification replaceAll(Map<String, UnaryOperator<Product>> updates) {
+        Map<String, VersionedProduct> replaced = new HashMap<>(updates.size() * 2);
+        Map<String, RuntimeException> failed = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            updates.forEach((id, update) -> {
+                VersionedProduct current = table.get(id);
+                if (current == null) {
+                    return;
+                }
+                Product product;
+                try {
+                    product = update.apply(current.product());
+                    table.check(product);
+                    journal.append(product);
+                } catch (RuntimeException e) {
+                    failed.put(id, e);
+                    return;
+                }
+                VersionedProduct next = new VersionedProduct(product, current.version() + 1);
+                table.put(next);
+                indexes.forEach(index -> {
+                    index.remove(current.product());
+                    index.add(product);
+                });
+                publish(ProductEvent.Type.MODIFIED, next);
+                replaced.put(id, next);
+            });
+            return new BatchModification(replaced, failed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void publish(ProductEvent.Type type, VersionedProduct product) {
+        if (events != null) {
+            events.append(type, product);
+        }
+    }
+
+    public Optional<Product> get(String id) {
+        return getVersioned(id).map(VersionedProduct::product);
+    }
+
+    public Optional<VersionedProduct> getVersioned(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(table.concurrent() ? table.get(id) : read(() -> table.get(id)));
+    }
+
+    public List<Product> snapshot() {
+        return read(() -> page(null, Integer.MAX_VALUE));
+    }
+
+    public List<Product> page(String afterId, int limit) {
+        return read(() -> {
+            List<Product> page = new ArrayList<>(Math.min(limit, CHUNK_SIZE));
+            Iterator<VersionedProduct> iterator = table.iterator(afterId);
+            while (page.size() < limit && iterator.hasNext()) {
+                page.add(iterator.next().product());
+            }
+            return Collections.unmodifiableList(page);
+        });
+    }
+
+    /**
+     * Live, id-ordered view that is iterated without copying the whole store. Iteration is weakly consistent:
+     * every product seen is a committed version, but writes made during iteration may or may not be reflected.
+     * Tables that need the read lock are read a chunk at a time, so writers are not held up by a slow consumer.
+     */
+    public Collection<Product> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Product> iterator() {
+                if (!table.concurrent()) {
+                    return chunkedIterator();
+                }
+                Iterator<VersionedProduct> iterator = table.iterator(null);
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Product next() {
+                        return iterator.next().product();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ProductStore.this.size();
+            }
+        };
+    }
+
+    private Iterator<Product> chunkedIterator() {
+        return new Iterator<>() {
+            private List<Product> chunk = page(null, CHUNK_SIZE);
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                if (position == chunk.size() && chunk.size() == CHUNK_SIZE) {
+                    chunk = page(chunk.get(chunk.size() - 1).id(), CHUNK_SIZE);
+                    position = 0;
+                }
+                return position < chunk.size();
+            }
+
+            @Override
+            public Product next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.get(position++);
+            }
+        };
+    }
+
+    public <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return table.concurrent() ? table.size() : read(table::size);
+    }
+}
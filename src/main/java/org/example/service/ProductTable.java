@@ -0,0 +1,35 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+import java.util.Iterator;
+
+/**
+ * Storage behind a {@link ProductStore}, keyed by product id. Writes are made under the store's write lock.
+ */
+interface ProductTable {
+    VersionedProduct get(String id);
+
+    /**
+     * Inserts the product, or replaces the product with the same id.
+     */
+    void put(VersionedProduct product);
+
+    /**
+     * Throws if {@link #put} would reject the product. Called before the write is journaled.
+     */
+    default void check(Product product) {
+    }
+
+    int size();
+
+    /**
+     * Products with an id above {@code afterId}, or all products for null, in id order.
+     */
+    Iterator<VersionedProduct> iterator(String afterId);
+
+    /**
+     * Whether {@link #get} and {@link #iterator} may be used without holding the store's read lock.
+     */
+    boolean concurrent();
+}
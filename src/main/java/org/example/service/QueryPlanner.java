@@ -0,0 +1,186 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Answers a {@link ProductQuery} from the cheapest access path. Each index that can narrow the query proposes a
+ * path with an estimated number of candidates. The chosen path produces the candidates and every other filter is
+ * checked on each of them, which intersects the candidate set with the other paths without materializing them.
+ * A path that yields candidates in the requested order stops once the limit is reached; otherwise only the best
+ * {@code limit} candidates are kept in a heap instead of sorting all matches.
+ */
+class QueryPlanner {
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final ProductStore store;
+    private final CategoryIndex categoryIndex;
+    private final CreationDateIndex creationDateIndex;
+    private final RatingIndex ratingIndex;
+
+    private record AccessPath(String name, long estimate, Iterable<Product> candidates, ProductQuery.Sort order) {
+    }
+
+    QueryPlanner(ProductStore store, CategoryIndex categoryIndex, CreationDateIndex creationDateIndex,
+                 RatingIndex ratingIndex) {
+        this.store = store;
+        this.categoryIndex = categoryIndex;
+        this.creationDateIndex = creationDateIndex;
+        this.ratingIndex = ratingIndex;
+    }
+
+    /**
+     * Must be called while holding the store's read lock.
+     */
+    QueryResult execute(ProductQuery query) {
+        List<AccessPath> paths = accessPaths(query);
+        AccessPath path = cheapest(paths, query);
+        boolean ordered = path.order() == query.sort() && !query.descending();
+
+        List<Product> result;
+        int examined = 0;
+        if (ordered) {
+            result = new ArrayList<>();
+            Comparator<Product> key = query.sort().key();
+            for (Product product : path.candidates()) {
+                if (result.size() >= query.limit() && key.compare(product, result.get(result.size() - 1)) > 0) {
+                    break;
+                }
+                examined++;
+                if (query.matches(product)) {
+                    result.add(product);
+                }
+            }
+            result.sort(query.order());
+        } else {
+            PriorityQueue<Product> best = new PriorityQueue<>(query.limit() + 1, query.order().reversed());
+            for (Product product : path.candidates()) {
+                examined++;
+                if (query.matches(product)) {
+                    offer(best, product, query.limit());
+                }
+            }
+            result = new ArrayList<>(best);
+            result.sort(query.order());
+        }
+        List<Product> products = result.size() > query.limit() ? result.subList(0, query.limit()) : result;
+        String plan = path.name() + " estimate=" + path.estimate() + (ordered ? " ordered" : " top-k")
+                + " examined=" + examined;
+        return new QueryResult(List.copyOf(products), plan);
+    }
+
+    /**
+     * Answers {@code query} by scanning every row of {@code columns}, keeping the best {@code query.limit()} of
+     * each chunk and merging them. Must be called while holding the store's read lock.
+     */
+    static QueryResult scan(ColumnarTable columns, ProductQuery query) {
+        ColumnarTable.RowFilter filter = query.columnFilter();
+        Predicate<String> name = query.nameFilter();
+        PriorityQueue<Product> best = ParallelScan.reduce(columns.size(),
+                () -> new PriorityQueue<>(query.limit() + 1, query.order().reversed()),
+                (partial, from, to) -> columns.scan(filter, name, from, to,
+                        product -> offer(partial, product, query.limit())),
+                (left, right) -> {
+                    right.forEach(product -> offer(left, product, query.limit()));
+                    return left;
+                });
+        List<Product> result = new ArrayList<>(best);
+        result.sort(query.order());
+        return new QueryResult(List.copyOf(result), "columnar-scan examined=" + columns.size());
+    }
+
+    private static void offer(PriorityQueue<Product> best, Product product, int limit) {
+        best.add(product);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    private List<AccessPath> accessPaths(ProductQuery query) {
+        List<AccessPath> paths = new ArrayList<>();
+        paths.add(new AccessPath("scan", store.size(), store.values(), ProductQuery.Sort.ID));
+        long fewest = store.size();
+        if (query.category() != null) {
+            NavigableSet<Product> products = categoryIndex.view(query.category());
+            paths.add(new AccessPath("category", products.size(), products, ProductQuery.Sort.NAME));
+            fewest = Math.min(fewest, products.size());
+        }
+        if (query.createdFrom() != null || query.createdTo() != null) {
+            Collection<Map<String, Product>> days = creationDateIndex.between(query.createdFrom(), query.createdTo());
+            int count = count(days);
+            paths.add(new AccessPath("created", count, products(days), ProductQuery.Sort.CREATED));
+            fewest = Math.min(fewest, count);
+        }
+        if (query.minRating() != null || query.maxRating() != null) {
+            List<Map<String, Product>> days = ratingIndex.between(
+                    query.minRating(), query.maxRating(), query.createdFrom(), query.createdTo());
+            int count = count(days);
+            paths.add(new AccessPath("rating", count, products(days), null));
+            fewest = Math.min(fewest, count);
+        }
+        if (query.namePrefix() != null) {
+            List<NavigableSet<Product>> ranges = new ArrayList<>();
+            for (Category category : query.category() == null ? CATEGORIES : new Category[]{query.category()}) {
+                ranges.add(CategoryIndex.withNamePrefix(categoryIndex.view(category), query.namePrefix()));
+            }
+            // sizing a sub-set walks it, so stop counting once the range cannot be the cheapest path
+            long count = 0;
+            for (NavigableSet<Product> range : ranges) {
+                Iterator<Product> iterator = range.iterator();
+                while (count <= fewest && iterator.hasNext()) {
+                    iterator.next();
+                    count++;
+                }
+            }
+            paths.add(new AccessPath("namePrefix", count, () -> CategoryIndex.inNameOrder(ranges),
+                    ProductQuery.Sort.NAME));
+        }
+        return paths;
+    }
+
+    /**
+     * Picks the path with the lowest expected number of candidates examined. Filters are assumed independent to
+     * estimate how many products match, which tells how far an ordered path has to go to fill the limit.
+     */
+    private AccessPath cheapest(List<AccessPath> paths, ProductQuery query) {
+        double size = Math.max(1, store.size());
+        double matches = size;
+        for (AccessPath path : paths.subList(1, paths.size())) {
+            matches *= path.estimate() / size;
+        }
+        AccessPath cheapest = null;
+        double lowest = Double.MAX_VALUE;
+        for (AccessPath path : paths) {
+            double cost = path.estimate();
+            if (path.order() == query.sort() && !query.descending()) {
+                cost *= Math.min(1, query.limit() / Math.max(1, matches));
+            }
+            if (cost < lowest) {
+                lowest = cost;
+                cheapest = path;
+            }
+        }
+        return cheapest;
+    }
+
+    private static int count(Collection<Map<String, Product>> days) {
+        int count = 0;
+        for (Map<String, Product> day : days) {
+            count += day.size();
+        }
+        return count;
+    }
+
+    private static Iterable<Product> products(Collection<Map<String, Product>> days) {
+        List<Collection<Product>> parts = new ArrayList<>(days.size());
+        days.forEach(day -> parts.add(day.values()));
+        return concat(parts);
+    }
+
+    private static Iterable<Product> concat(List<? extends Collection<Product>> parts) {
+        return () -> parts.stream().flatMap(Collection::stream).iterator();
+    }
+}
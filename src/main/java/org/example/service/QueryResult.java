@@ -0,0 +1,11 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+import java.util.List;
+
+/**
+ * Products matching a {@link ProductQuery} together with a description of the plan that produced them.
+ */
+public record QueryResult(List<Product> products, String plan) {
+}
@@ -0,0 +1,4 @@
+package org.example.service;
+
+public record RatingCount(int rating, int count) {
+}
@@ -0,0 +1,45 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class RatingIndex implements ProductIndex {
+    private final Map<Integer, CreationDateIndex> byRating = new HashMap<>();
+
+    @Override
+    public void add(Product product) {
+        byRating.computeIfAbsent(product.rating(), rating -> new CreationDateIndex()).add(product);
+    }
+
+    @Override
+    public void remove(Product product) {
+        CreationDateIndex bucket = byRating.get(product.rating());
+        if (bucket != null) {
+            bucket.remove(product);
+        }
+    }
+
+    List<Product> createdAfter(int rating, LocalDate date) {
+        CreationDateIndex bucket = byRating.get(rating);
+        return bucket == null ? List.of() : bucket.createdAfter(date);
+    }
+
+    /**
+     * Days with products rated {@code minRating} to {@code maxRating} and created from {@code from} to {@code to},
+     * all inclusive. Any bound may be null.
+     */
+    List<Map<String, Product>> between(Integer minRating, Integer maxRating, LocalDate from, LocalDate to) {
+        List<Map<String, Product>> days = new ArrayList<>();
+        byRating.forEach((rating, bucket) -> {
+            if ((minRating == null || rating >= minRating) && (maxRating == null || rating <= maxRating)) {
+                days.addAll(bucket.between(from, to));
+            }
+        });
+        return days;
+    }
+}
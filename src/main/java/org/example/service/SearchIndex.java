@@ -0,0 +1,238 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.util.*;
+
+/**
+ * Inverted index from lower-cased name tokens to products. Terms are kept sorted, so every query term is matched
+ * as a prefix through a range of the term map. Candidates come from the query term with the fewest postings and
+ * are verified against the other terms; exact token matches rank above prefix matches.
+ * <p>
+ * Postings are ordered by name, the ranking tie-break, so a scan can stop as soon as it holds {@code limit}
+ * hits that no later candidate could outrank.
+ */
+class SearchIndex implements ProductIndex {
+    private static final int EXACT_MATCH = 3;
+    private static final int PREFIX_MATCH = 1;
+    private static final int LEADING_MATCH = 1;
+    private static final int MAX_MERGED_SETS = 16;
+
+    private final NavigableMap<String, NavigableSet<Product>> postings = new TreeMap<>();
+
+    private record Hit(Product product, int score) {
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(Hit::product, CategoryIndex.BY_NAME);
+
+    @Override
+    public void add(Product product) {
+        for (String token : tokens(product.name())) {
+            postings.computeIfAbsent(token, t -> new TreeSet<>(CategoryIndex.BY_NAME)).add(product);
+        }
+    }
+
+    @Override
+    public void remove(Product product) {
+        for (String token : tokens(product.name())) {
+            NavigableSet<Product> products = postings.get(token);
+            if (products != null && products.remove(product) && products.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} products whose name has a token starting with each term of {@code query}, best
+     * match first. {@code category} may be null to search all categories.
+     */
+    List<Product> search(String query, Category category, int minRating, int limit) {
+        List<String> terms = tokens(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Collection<NavigableSet<Product>> candidates = null;
+        long fewest = Long.MAX_VALUE;
+        int bestPossible = LEADING_MATCH;
+        for (String term : terms) {
+            bestPossible += postings.containsKey(term) ? EXACT_MATCH : PREFIX_MATCH;
+            Collection<NavigableSet<Product>> matching = matching(term);
+            long size = 0;
+            for (Set<Product> products : matching) {
+                size += products.size();
+                if (size >= fewest) {
+                    break;
+                }
+            }
+            if (size < fewest) {
+                fewest = size;
+                candidates = matching;
+            }
+        }
+
+        // names starting with the first term form one range in name order and are the only ones with the
+        // leading bonus, so scan them first and skip the rest if they already fill the result
+        List<NavigableSet<Product>> leading = new ArrayList<>(candidates.size());
+        candidates.forEach(products -> leading.add(CategoryIndex.withNamePrefix(products, terms.get(0))));
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        Filter filter = new Filter(terms, category, minRating, limit);
+        filter.scan(leading, best, bestPossible, false);
+        filter.scan(candidates, best, bestPossible - LEADING_MATCH, true);
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits.stream().map(Hit::product).toList();
+    }
+
+    /**
+     * Orders already matching {@code candidates} by score the way {@link #search} does and returns the best
+     * {@code limit}, for storage without postings.
+     */
+    static List<Product> rank(Collection<Product> candidates, List<String> terms, int limit) {
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (Product product : candidates) {
+            best.add(new Hit(product, score(product.name(), terms)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits.stream().map(Hit::product).toList();
+    }
+
+    private record Filter(List<String> terms, Category category, int minRating, int limit) {
+        /**
+         * Offers the products of {@code sets}, which score at most {@code cap}, to the top {@code limit} hits in
+         * {@code best}. Few sets are merged in name order so the scan can stop early; merging many costs more
+         * than visiting every product once.
+         */
+        void scan(Collection<NavigableSet<Product>> sets, PriorityQueue<Hit> best, int cap, boolean skipLeading) {
+            if (sets.size() > MAX_MERGED_SETS) {
+                Set<Product> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Set<Product> products : sets) {
+                    for (Product product : products) {
+                        if (seen.add(product)) {
+                            offer(product, best, skipLeading);
+                        }
+                    }
+                }
+                return;
+            }
+            Iterator<Product> byName = CategoryIndex.inNameOrder(sets);
+            Product previous = null;
+            while (byName.hasNext()) {
+                Product product = byName.next();
+                if (best.size() == limit && (best.peek().score() > cap || (best.peek().score() == cap
+                        && CategoryIndex.BY_NAME.compare(product, best.peek().product()) >= 0))) {
+                    // neither this candidate nor any after it can outrank the worst hit
+                    return;
+                }
+                if (product != previous) {
+                    offer(product, best, skipLeading);
+                    previous = product;
+                }
+            }
+        }
+
+        private void offer(Product product, PriorityQueue<Hit> best, boolean skipLeading) {
+            if ((skipLeading && startsWith(product.name(), terms.get(0)))
+                    || (category != null && product.category() != category)
+                    || product.rating() < minRating) {
+                return;
+            }
+            int score = score(product.name(), terms);
+            if (score == 0 || (best.size() == limit && !outranks(score, product, best.peek()))) {
+                return;
+            }
+            best.add(new Hit(product, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    private static boolean startsWith(String name, String term) {
+        return name.regionMatches(true, 0, term, 0, term.length());
+    }
+
+    private static boolean outranks(int score, Product product, Hit worst) {
+        return score != worst.score()
+                ? score > worst.score()
+                : CategoryIndex.BY_NAME.compare(product, worst.product()) < 0;
+    }
+
+    private Collection<NavigableSet<Product>> matching(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    /**
+     * Scores a name against the query terms, or returns 0 if some term matches none of its tokens. Matches in
+     * place so that scoring a candidate does not allocate.
+     */
+    static int score(String name, List<String> terms) {
+        int score = 0;
+        for (String term : terms) {
+            int termScore = 0;
+            for (int start = nextToken(name, 0); start < name.length(); start = nextToken(name, tokenEnd(name, start))) {
+                if (name.regionMatches(true, start, term, 0, term.length())) {
+                    if (tokenEnd(name, start) == start + term.length()) {
+                        termScore = EXACT_MATCH;
+                        break;
+                    }
+                    termScore = PREFIX_MATCH;
+                }
+            }
+            if (termScore == 0) {
+                return 0;
+            }
+            score += termScore;
+        }
+        if (startsWith(name, terms.get(0))) {
+            score += LEADING_MATCH;
+        }
+        return score;
+    }
+
+    private static int nextToken(String text, int from) {
+        int i = from;
+        while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int tokenEnd(String text, int start) {
+        int i = start;
+        while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Splits text into distinct lower-cased runs of letters and digits, in order of first appearance.
+     */
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!tokens.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * One {@link VersionedProduct} object per product in a concurrent skip list, so lookups and iteration need no lock.
+ */
+class SkipListTable implements ProductTable {
+    private final ConcurrentNavigableMap<String, VersionedProduct> byId = new ConcurrentSkipListMap<>();
+
+    @Override
+    public VersionedProduct get(String id) {
+        return byId.get(id);
+    }
+
+    @Override
+    public void put(VersionedProduct product) {
+        byId.put(product.product().id(), product);
+    }
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public Iterator<VersionedProduct> iterator(String afterId) {
+        return (afterId == null ? byId : byId.tailMap(afterId, false)).values().iterator();
+    }
+
+    @Override
+    public boolean concurrent() {
+        return true;
+    }
+}
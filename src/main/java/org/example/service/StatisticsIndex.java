@@ -0,0 +1,87 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+
+import java.util.*;
+
+/**
+ * Running counters per category ordinal and per starting letter. Read views are built once per change
+ * and shared until the next write, so polling them does not allocate.
+ */
+class StatisticsIndex implements ProductIndex {
+    private static final Category[] CATEGORIES = Category.values();
+    private static final int DIRECT_LETTERS = 256;
+
+    private final int[] categoryCounts = new int[CATEGORIES.length];
+    private final long[] letterCounts = new long[DIRECT_LETTERS];
+    private final Map<Character, Long> otherLetterCounts = new HashMap<>();
+
+    private volatile List<Category> nonEmptyCategories = List.of();
+    private volatile Map<Character, Long> letterMap = Map.of();
+
+    @Override
+    public void add(Product product) {
+        update(product, 1);
+    }
+
+    @Override
+    public void remove(Product product) {
+        update(product, -1);
+    }
+
+    private void update(Product product, int delta) {
+        int ordinal = product.category().ordinal();
+        int before = categoryCounts[ordinal];
+        categoryCounts[ordinal] += delta;
+        if (before == 0 || categoryCounts[ordinal] == 0) {
+            nonEmptyCategories = null;
+        }
+
+        String name = product.name();
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        char letter = name.charAt(0);
+        if (letter < DIRECT_LETTERS) {
+            letterCounts[letter] += delta;
+        } else {
+            otherLetterCounts.merge(letter, (long) delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        letterMap = null;
+    }
+
+    int count(Category category) {
+        return categoryCounts[category.ordinal()];
+    }
+
+    List<Category> nonEmptyCategories() {
+        List<Category> categories = nonEmptyCategories;
+        if (categories == null) {
+            List<Category> result = new ArrayList<>();
+            for (Category category : CATEGORIES) {
+                if (categoryCounts[category.ordinal()] > 0) {
+                    result.add(category);
+                }
+            }
+            categories = List.copyOf(result);
+            nonEmptyCategories = categories;
+        }
+        return categories;
+    }
+
+    Map<Character, Long> letterMap() {
+        Map<Character, Long> map = letterMap;
+        if (map == null) {
+            Map<Character, Long> result = new HashMap<>(otherLetterCounts);
+            for (int letter = 0; letter < DIRECT_LETTERS; letter++) {
+                if (letterCounts[letter] > 0) {
+                    result.put((char) letter, letterCounts[letter]);
+                }
+            }
+            map = Map.copyOf(result);
+            letterMap = map;
+        }
+        return map;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.service;
+
+/**
+ * How {@link WarehouseService} keeps products in memory, chosen with {@value #PROPERTY}.
+ */
+public enum StorageMode {
+    /**
+     * A {@code Product} object per product plus object indexes for every query. Fastest queries.
+     */
+    OBJECTS,
+    /**
+     * Primitive columns without secondary indexes. Queries scan the columns, which costs far less heap per
+     * product.
+     */
+    COLUMNAR;
+
+    public static final String PROPERTY = "warehouse.storage";
+
+    public static StorageMode fromSystemProperties() {
+        return valueOf(System.getProperty(PROPERTY, OBJECTS.name()).toUpperCase());
+    }
+}
@@ -0,0 +1,363 @@
+package org.example.service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.entities.ProductUpdate;
+import org.example.persistence.PersistenceConfig;
+import org.example.persistence.ProductPersistence;
+import org.example.validation.ProductValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * The catalogue of a {@link WarehouseService} in a single {@link ProductStore} with its indexes and, if enabled, its
+ * persistence. See {@link WarehouseService} for what each operation does.
+ */
+final class StoreCatalogue {
+    private static final Logger logger = LoggerFactory.getLogger(StoreCatalogue.class);
+
+    private final StatisticsIndex statisticsIndex = new StatisticsIndex();
+    private final ModificationIndex modificationIndex = new ModificationIndex(Clock.systemUTC());
+    private final DailyRollupIndex rollups = new DailyRollupIndex();
+    // object indexes, null in columnar mode where queries scan the columns instead
+    private final CategoryIndex categoryIndex;
+    private final CreationDateIndex creationDateIndex;
+    private final RatingIndex ratingIndex;
+    private final SearchIndex searchIndex;
+    private final QueryPlanner planner;
+    private final ColumnarTable columns;
+    private final ProductStore store;
+    private final ProductValidator validator = new ProductValidator();
+    private volatile ProductPersistence persistence;
+    private volatile ProductJournal replicationJournal = ProductJournal.NONE;
+    private ScheduledExecutorService maintenance;
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    /**
+     * Writes are recorded in {@code events}.
+     */
+    StoreCatalogue(StorageMode mode, ProductEventLog events) {
+        if (mode == StorageMode.COLUMNAR) {
+            categoryIndex = null;
+            creationDateIndex = null;
+            ratingIndex = null;
+            searchIndex = null;
+            store = new ProductStore(new ColumnarTable(), statisticsIndex, modificationIndex, rollups);
+            columns = store.columnar();
+            planner = null;
+        } else {
+            categoryIndex = new CategoryIndex();
+            creationDateIndex = new CreationDateIndex();
+            ratingIndex = new RatingIndex();
+            searchIndex = new SearchIndex();
+            store = new ProductStore(
+                    categoryIndex, creationDateIndex, ratingIndex, statisticsIndex, modificationIndex, searchIndex, rollups);
+            columns = null;
+            planner = new QueryPlanner(store, categoryIndex, creationDateIndex, ratingIndex);
+        }
+        store.publishTo(events);
+    }
+
+    public void enablePersistence(PersistenceConfig config) {
+        ProductPersistence opened = ProductPersistence.open(config);
+        store.load(opened.recover());
+        persistence = opened;
+        store.attach(ProductJournal.both(opened.journal(), replicationJournal));
+        if (config.snapshotIntervalMillis() > 0 || config.needsPeriodicSync()) {
+            maintenance = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().daemon().name("warehouse-persistence").factory());
+        }
+        if (config.snapshotIntervalMillis() > 0) {
+            maintenance.scheduleWithFixedDelay(this::checkpointIfChanged,
+                    config.snapshotIntervalMillis(), config.snapshotIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (config.needsPeriodicSync()) {
+            // writers below the fsync batch do not sync, so a quiet period would otherwise leave them unsynced
+            maintenance.scheduleWithFixedDelay(this::syncPending,
+                    config.fsyncDelayMillis(), config.fsyncDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void checkpoint() {
+        ProductPersistence current = persistence;
+        if (current == null) {
+            return;
+        }
+        // callers and the maintenance thread both checkpoint, and the read lock alone lets them overlap
+        checkpointLock.lock();
+        try {
+            ProductPersistence.Checkpoint checkpoint = store.read(() -> current.beginCheckpoint(store.values()));
+            current.completeCheckpoint(checkpoint);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    private void checkpointIfChanged() {
+        try {
+            ProductPersistence current = persistence;
+            if (current != null && current.hasChangesSinceCheckpoint()) {
+                checkpoint();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Checkpoint failed", e);
+        }
+    }
+
+    private void syncPending() {
+        try {
+            ProductPersistence current = persistence;
+            if (current != null) {
+                current.journal().sync();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Periodic write-ahead log sync failed", e);
+        }
+    }
+
+    public void close() {
+        if (maintenance != null) {
+            maintenance.shutdown();
+            try {
+                maintenance.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ProductPersistence current = persistence;
+        if (current != null) {
+            persistence = null;
+            store.attach(replicationJournal);
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.error("Could not close persistence", e);
+            }
+        }
+    }
+
+    public void replicateTo(ProductJournal journal) {
+        replicationJournal = journal;
+        ProductPersistence current = persistence;
+        store.attach(current == null ? journal : ProductJournal.both(current.journal(), journal));
+    }
+
+    public <T> T readConsistent(Function<Collection<Product>, T> reader) {
+        return store.read(() -> reader.apply(store.values()));
+    }
+
+    public void applyReplicated(List<Product> products) {
+        store.applyAll(products);
+        awaitDurable();
+    }
+
+    private void awaitDurable() {
+        ProductPersistence current = persistence;
+        if (current != null) {
+            current.journal().awaitDurable();
+        }
+    }
+
+    public void addProduct(Product product) {
+        if (!store.insert(product)) {
+            throw new IllegalArgumentException("Product already exists");
+        }
+        awaitDurable();
+    }
+
+    public BatchResult addProducts(Collection<Product> products) {
+        List<BatchResult.BatchError> errors = new ArrayList<>();
+        List<Product> valid = new ArrayList<>(products.size());
+        List<Integer> positions = new ArrayList<>(products.size());
+        int index = 0;
+        for (Product product : products) {
+            String violations = validator.validate(product);
+            if (violations == null) {
+                valid.add(product);
+                positions.add(index);
+            } else {
+                errors.add(new BatchResult.BatchError(index, product == null ? null : product.id(), violations));
+            }
+            index++;
+        }
+
+        BitSet rejected = store.insertAll(valid);
+        awaitDurable();
+        rejected.stream().forEach(i -> errors.add(
+                new BatchResult.BatchError(positions.get(i), valid.get(i).id(), "Product already exists")));
+        errors.sort(Comparator.comparingInt(BatchResult.BatchError::index));
+        return new BatchResult(valid.size() - rejected.cardinality(), errors);
+    }
+
+    public Optional<VersionedProduct> modifyProduct(String id, String newName, Category newCategory, int newRating,
+                                                    long expectedVersion) {
+        Optional<VersionedProduct> modified = store.replace(id, expectedVersion, product -> new Product(
+                product.id(),
+                newName,
+                newCategory,
+                newRating,
+                product.creationDate(),
+                LocalDate.now()
+        ));
+        awaitDurable();
+        return modified;
+    }
+
+    public BatchModification modifyProducts(Map<String, ProductUpdate> updates) {
+        LocalDate today = LocalDate.now();
+        Map<String, UnaryOperator<Product>> changes = new HashMap<>(updates.size() * 2);
+        updates.forEach((id, update) -> changes.put(id, product -> new Product(
+                product.id(),
+                update.name(),
+                update.category(),
+                update.rating(),
+                product.creationDate(),
+                today
+        )));
+        BatchModification result = store.replaceAll(changes);
+        try {
+            awaitDurable();
+        } catch (RuntimeException e) {
+            // applied but maybe not durable, which a single write reports as a failure too
+            Map<String, RuntimeException> failed = new HashMap<>(result.failed());
+            result.modified().keySet().forEach(id -> failed.put(id, e));
+            return new BatchModification(Map.of(), failed);
+        }
+        return result;
+    }
+
+    public List<Product> getAllProducts() {
+        return store.snapshot();
+    }
+
+    public int getProductCount() {
+        return store.size();
+    }
+
+    public ModificationStamp getCatalogueStamp() {
+        return store.read(modificationIndex::catalogue);
+    }
+
+    public ModificationStamp getCategoryStamp(Category category) {
+        return store.read(() -> modificationIndex.category(category));
+    }
+
+    public Optional<VersionedProduct> getVersionedProduct(String id) {
+        return store.getVersioned(id);
+    }
+
+    public List<Product> getProductsPage(String afterId, int limit) {
+        return store.page(afterId, limit);
+    }
+
+    public Iterable<Product> iterateAllProducts() {
+        return store.values();
+    }
+
+    public List<Product> getProductsByCategory(Category category) {
+        if (columns != null) {
+            int ordinal = category.ordinal();
+            return store.read(() -> sorted(columns.select((c, rating, created, modified) -> c == ordinal, null),
+                    CategoryIndex.BY_NAME));
+        }
+        return store.read(() -> categoryIndex.products(category));
+    }
+
+    public List<Product> searchProducts(String query, Category category, int minRating, int limit) {
+        if (columns != null) {
+            List<String> terms = SearchIndex.tokens(query);
+            if (terms.isEmpty() || limit <= 0) {
+                return List.of();
+            }
+            int ordinal = category == null ? -1 : category.ordinal();
+            return store.read(() -> SearchIndex.rank(columns.select(
+                    (c, rating, created, modified) -> (ordinal < 0 || c == ordinal) && rating >= minRating,
+                    name -> SearchIndex.score(name, terms) > 0), terms, limit));
+        }
+        return store.read(() -> searchIndex.search(query, category, minRating, limit));
+    }
+
+    public QueryResult query(ProductQuery query) {
+        if (columns != null) {
+            return store.read(() -> QueryPlanner.scan(columns, query));
+        }
+        return store.read(() -> planner.execute(query));
+    }
+
+    public List<Product> getProductsCreatedAfter(LocalDate date) {
+        if (columns != null) {
+            long day = date.toEpochDay();
+            return store.read(() -> sorted(columns.select((c, rating, created, modified) -> created > day, null),
+                    Comparator.comparing(Product::creationDate)));
+        }
+        return store.read(() -> creationDateIndex.createdAfter(date));
+    }
+
+    public List<Product> getModifiedProducts() {
+        if (columns != null) {
+            return store.read(() -> sorted(columns.select((c, rating, created, modified) -> created != modified, null),
+                    Comparator.comparing(Product::id)));
+        }
+        return ParallelScan.filter(store.snapshot(),
+                product -> !product.creationDate().equals(product.lastModifiedDate()));
+    }
+
+    public List<Category> getNonEmptyCategories() {
+        return store.read(statisticsIndex::nonEmptyCategories);
+    }
+
+    public int getNumberProductsByCategory(Category category) {
+        return store.read(() -> statisticsIndex.count(category));
+    }
+
+    public Map<Character, Long> getProductStartingLetterMap() {
+        return store.read(statisticsIndex::letterMap);
+    }
+
+    public List<Product> getMaxRatedProductsLastMonth() {
+        LocalDate monthAgo = LocalDate.now().minusMonths(1);
+        if (columns != null) {
+            return store.read(() -> resolve(rollups.ids(monthAgo.plusDays(1), null, null, DailyRollupIndex.MAX_RATING)));
+        }
+        return store.read(() -> ratingIndex.createdAfter(DailyRollupIndex.MAX_RATING, monthAgo));
+    }
+
+    public List<Product> getTopRated(LocalDate from, LocalDate to, Category category, int limit) {
+        return store.read(() -> resolve(rollups.topRated(from, to, category, limit)));
+    }
+
+    public List<RatingCount> getRatingHistogram(LocalDate from, LocalDate to, Category category) {
+        int[] histogram = store.read(() -> rollups.ratingHistogram(from, to, category));
+        List<RatingCount> result = new ArrayList<>(DailyRollupIndex.MAX_RATING);
+        for (int rating = 1; rating <= DailyRollupIndex.MAX_RATING; rating++) {
+            result.add(new RatingCount(rating, histogram[rating]));
+        }
+        return result;
+    }
+
+    public List<DailyCount> getCreatedPerDay(LocalDate from, LocalDate to, Category category) {
+        return store.read(() -> rollups.createdPerDay(from, to, category));
+    }
+
+    private List<Product> resolve(List<String> ids) {
+        List<Product> products = new ArrayList<>(ids.size());
+        ids.forEach(id -> store.get(id).ifPresent(products::add));
+        return products;
+    }
+
+    private static List<Product> sorted(List<Product> products, Comparator<Product> order) {
+        products.sort(order);
+        return products;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.service;
+
+public class VersionConflictException extends RuntimeException {
+    private final long currentVersion;
+
+    public VersionConflictException(String id, long expectedVersion, long currentVersion) {
+        super("Product " + id + " is at version " + currentVersion + ", expected " + expectedVersion);
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.service;
+
+import org.example.entities.Product;
+
+/**
+ * A product together with its version in the store. The version starts at 1 and grows by one on every write.
+ */
+public record VersionedProduct(Product product, long version) {
+}
@@ -1,100 +1,202 @@
 package org.example.service;
 
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.example.entities.Category;
 import org.example.entities.Product;
+import org.example.entities.ProductUpdate;
+import org.example.persistence.PersistenceConfig;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
+/**
+ * Entry point to the catalogue, which is kept in a single {@link StoreCatalogue}. Every write is recorded in its
+ * {@link ProductEventLog}.
+ */
 @ApplicationScoped
 public class WarehouseService {
-    private final List<Product> products = new CopyOnWriteArrayList<>();
+    private final ProductEventLog events;
+    private final StoreCatalogue catalogue;
 
-    public void addProduct(Product product) {
-        if (products.stream().anyMatch(p -> p.id().equals(product.id()))) {
-            throw new IllegalArgumentException("Product already exists");
+    public WarehouseService() {
+        this(StorageMode.fromSystemProperties());
+    }
+
+    public WarehouseService(StorageMode mode) {
+        this.events = new ProductEventLog();
+        this.catalogue = new StoreCatalogue(mode, events);
+    }
+
+    @PostConstruct
+    void start() {
+        PersistenceConfig config = PersistenceConfig.fromSystemProperties();
+        if (config.enabled()) {
+            enablePersistence(config);
         }
-        products.add(product);
+    }
+
+    /**
+     * Loads the catalogue stored in {@code config.directory()} and logs every later write there.
+     * Must be called before the service is used.
+     */
+    public void enablePersistence(PersistenceConfig config) {
+        catalogue.enablePersistence(config);
+    }
+
+    public void checkpoint() {
+        catalogue.checkpoint();
+    }
+
+    @PreDestroy
+    public void close() {
+        catalogue.close();
+    }
+
+    /**
+     * Sends every later write to {@code journal} once it has been logged, in commit order.
+     */
+    public void replicateTo(ProductJournal journal) {
+        catalogue.replicateTo(journal);
+    }
+
+    /**
+     * Calls {@code reader} with every product while no write can be applied, so the result is consistent with
+     * everything the journals have been sent.
+     */
+    public <T> T readConsistent(Function<Collection<Product>, T> reader) {
+        return catalogue.readConsistent(reader);
+    }
+
+    /**
+     * Applies the state of products written on another node, which must not be written here as well.
+     */
+    public void applyReplicated(List<Product> products) {
+        catalogue.applyReplicated(products);
+    }
+
+    public void addProduct(Product product) {
+        catalogue.addProduct(product);
+    }
+
+    public BatchResult addProducts(Collection<Product> products) {
+        return catalogue.addProducts(products);
     }
 
     public void modifyProduct(String id, String newName, Category newCategory, int newRating) {
-        Optional<Product> existingProduct = getProductById(id);
-        existingProduct.ifPresent(product -> {
-            Product modifiedProduct = new Product(
-                    product.id(),
-                    newName,
-                    newCategory,
-                    newRating,
-                    product.creationDate(),
-                    LocalDate.now()
-            );
-            products.remove(product);
-            products.add(modifiedProduct);
-        });
+        modifyProduct(id, newName, newCategory, newRating, ProductStore.ANY_VERSION);
+    }
+
+    /**
+     * Modifies the product only if it is still at {@code expectedVersion}.
+     *
+     * @throws VersionConflictException if the product was modified since that version
+     */
+    public Optional<VersionedProduct> modifyProduct(String id, String newName, Category newCategory, int newRating,
+                                                    long expectedVersion) {
+        return catalogue.modifyProduct(id, newName, newCategory, newRating, expectedVersion);
+    }
+
+    /**
+     * Applies every update as one write per id under a single lock. Ids that fail are reported in the result
+     * instead of failing the others, which stay applied.
+     */
+    public BatchModification modifyProducts(Map<String, ProductUpdate> updates) {
+        return catalogue.modifyProducts(updates);
+    }
+
+    public ProductEventLog getEvents() {
+        return events;
     }
 
     public List<Product> getAllProducts() {
-        return List.copyOf(products);
+        return catalogue.getAllProducts();
+    }
+
+    public int getProductCount() {
+        return catalogue.getProductCount();
+    }
+
+    public ModificationStamp getCatalogueStamp() {
+        return catalogue.getCatalogueStamp();
+    }
+
+    public ModificationStamp getCategoryStamp(Category category) {
+        return catalogue.getCategoryStamp(category);
+    }
+
+    public Optional<VersionedProduct> getVersionedProduct(String id) {
+        return catalogue.getVersionedProduct(id);
+    }
+
+    public List<Product> getProductsPage(String afterId, int limit) {
+        return catalogue.getProductsPage(afterId, limit);
+    }
+
+    public Iterable<Product> iterateAllProducts() {
+        return catalogue.iterateAllProducts();
     }
 
     public Optional<Product> getProductById(String id) {
-        return products.stream()
-                .filter(product -> product.id().equals(id))
-                .findFirst();
+        return catalogue.getVersionedProduct(id).map(VersionedProduct::product);
     }
 
     public List<Product> getProductsByCategory(Category category) {
-        return products.stream()
-                .filter(product -> product.category().equals(category))
-                .sorted(Comparator.comparing(product -> product.name().toLowerCase()))
-                .collect(Collectors.toList());
+        return catalogue.getProductsByCategory(category);
+    }
+
+    /**
+     * Ranked search over product names. Each word of {@code query} must be a prefix of a word in the name;
+     * {@code category} may be null.
+     */
+    public List<Product> searchProducts(String query, Category category, int minRating, int limit) {
+        return catalogue.searchProducts(query, category, minRating, limit);
+    }
+
+    public QueryResult query(ProductQuery query) {
+        return catalogue.query(query);
     }
 
     public List<Product> getProductsCreatedAfter(LocalDate date) {
-        return products.stream()
-                .filter(product -> product.creationDate().isAfter(date))
-                .collect(Collectors.toList());
+        return catalogue.getProductsCreatedAfter(date);
     }
 
     public List<Product> getModifiedProducts() {
-        return products.stream()
-                .filter(product -> !product.creationDate().equals(product.lastModifiedDate()))
-                .collect(Collectors.toList());
+        return catalogue.getModifiedProducts();
     }
 
     public List<Category> getNonEmptyCategories() {
-        List<Category> categories = new ArrayList<>();
-        products.forEach(product -> {
-            if (!categories.contains(product.category())) {
-                categories.add(product.category());
-            }
-        });
-        return categories;
+        return catalogue.getNonEmptyCategories();
     }
 
     public int getNumberProductsByCategory(Category category) {
-        return products.stream()
-                .filter(product -> product.category().equals(category))
-                .toList()
-                .size();
+        return catalogue.getNumberProductsByCategory(category);
     }
 
     public Map<Character, Long> getProductStartingLetterMap() {
-        return products.stream()
-                .collect(Collectors.groupingBy(
-                        product -> product.name().charAt(0),
-                        Collectors.counting()
-                ));
+        return catalogue.getProductStartingLetterMap();
     }
 
     public List<Product> getMaxRatedProductsLastMonth() {
-        return products.stream()
-                .filter(product -> product.rating() == 10 && product.creationDate().isAfter(LocalDate.now().minusMonths(1)))
-                .sorted(Comparator.comparing(Product::creationDate))
-                .collect(Collectors.toList());
+        return catalogue.getMaxRatedProductsLastMonth();
+    }
+
+    /**
+     * Returns up to {@code limit} products created in the window, best rated first and then newest first. Any of
+     * {@code from}, {@code to} and {@code category} may be null.
+     */
+    public List<Product> getTopRated(LocalDate from, LocalDate to, Category category, int limit) {
+        return catalogue.getTopRated(from, to, category, limit);
+    }
+
+    public List<RatingCount> getRatingHistogram(LocalDate from, LocalDate to, Category category) {
+        return catalogue.getRatingHistogram(from, to, category);
+    }
+
+    public List<DailyCount> getCreatedPerDay(LocalDate from, LocalDate to, Category category) {
+        return catalogue.getCreatedPerDay(from, to, category);
     }
 }
@@ -0,0 +1,199 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.example.entities.ProductUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queues unconditional modifications from any number of callers for a single applier thread. The applier takes
+ * whatever is queued, waiting up to the linger time for more until the batch is full, keeps only the last
+ * modification of each id and applies them with {@link WarehouseService#modifyProducts}: one lock acquisition,
+ * one new version and one index update per id. A caller's future completes once the batch holding its
+ * modification is visible; modifications overwritten in the same batch complete with the state that replaced
+ * them, as if applied just before it. Failures are reported per id, so a bad modification only fails its own
+ * callers, and nothing is retried: a retry could write an id the batch had already written.
+ * <p>
+ * The applier is never interrupted, since an interrupt during a write would close the write-ahead log's channel.
+ * It polls the queue instead and stops once it is closed and nothing is left.
+ */
+@ApplicationScoped
+public class WritePipeline {
+    private static final Logger logger = LoggerFactory.getLogger(WritePipeline.class);
+    // how long an idle applier waits before checking whether the pipeline was closed
+    private static final long IDLE_POLL_MILLIS = 50;
+
+    private WarehouseService service;
+    private WritePipelineConfig config;
+    private BlockingQueue<Pending> queue;
+    private Thread applier;
+    private volatile boolean closed;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private record Pending(String id, ProductUpdate update, CompletableFuture<Optional<VersionedProduct>> result) {
+    }
+
+    /**
+     * {@code applied} counts writes after coalescing, so {@code submitted - applied} were absorbed by later
+     * modifications of the same id.
+     */
+    public record Stats(long submitted, long applied, long batches, long rejected, int queued) {
+    }
+
+    public WritePipeline() {
+    }
+
+    @Inject
+    public WritePipeline(WarehouseService service) {
+        this(service, WritePipelineConfig.fromSystemProperties());
+    }
+
+    public WritePipeline(WarehouseService service, WritePipelineConfig config) {
+        this.service = service;
+        this.config = config;
+        if (config.enabled()) {
+            this.queue = new ArrayBlockingQueue<>(config.capacity());
+            this.applier = Thread.ofPlatform().daemon().name("warehouse-write-pipeline").start(this::run);
+        }
+    }
+
+    public boolean enabled() {
+        return config.enabled();
+    }
+
+    /**
+     * Queues the modification. The future holds the new state, is empty if the product does not exist and fails
+     * with {@link RejectedExecutionException} if the queue is full or the pipeline is disabled or closed.
+     */
+    public CompletableFuture<Optional<VersionedProduct>> modify(String id, ProductUpdate update) {
+        Objects.requireNonNull(update, "update");
+        CompletableFuture<Optional<VersionedProduct>> result = new CompletableFuture<>();
+        if (id == null) {
+            // no product has a null id, and a null key would fail the whole batch
+            result.complete(Optional.empty());
+            return result;
+        }
+        Pending pending = new Pending(id, update, result);
+        if (queue == null || closed || !queue.offer(pending)) {
+            reject(pending);
+            return result;
+        }
+        // closed while offering, after the applier took its last modifications
+        if (closed && !applier.isAlive() && queue.remove(pending)) {
+            reject(pending);
+            return result;
+        }
+        submitted.increment();
+        return result;
+    }
+
+    private void reject(Pending pending) {
+        rejected.increment();
+        pending.result().completeExceptionally(
+                new RejectedExecutionException("Write pipeline is not accepting modifications"));
+    }
+
+    public Stats stats() {
+        return new Stats(submitted.sum(), applied.sum(), batches.sum(), rejected.sum(), queue == null ? 0 : queue.size());
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(config.maxBatch());
+        while (true) {
+            // read before collecting, so everything queued before the pipeline was closed is still applied
+            boolean stopping = closed;
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // the pipeline is closed through its flag, so carry on rather than drop what was collected
+                logger.warn("Write pipeline applier was interrupted");
+            }
+            if (!batch.isEmpty()) {
+                apply(batch);
+            } else if (stopping) {
+                return;
+            }
+        }
+    }
+
+    private void collect(List<Pending> batch) throws InterruptedException {
+        Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(config.lingerMicros());
+        while (batch.size() < config.maxBatch()) {
+            if (queue.drainTo(batch, config.maxBatch() - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void apply(List<Pending> batch) {
+        Map<String, ProductUpdate> latest = new HashMap<>(batch.size() * 2);
+        for (Pending pending : batch) {
+            latest.put(pending.id(), pending.update());
+        }
+        BatchModification result;
+        try {
+            result = service.modifyProducts(latest);
+        } catch (RuntimeException e) {
+            // failures are reported per id, so this one cannot say what was applied; fail every caller
+            logger.error("Could not apply a batch of {} modifications", latest.size(), e);
+            Map<String, RuntimeException> failed = new HashMap<>(latest.size() * 2);
+            latest.keySet().forEach(id -> failed.put(id, e));
+            result = new BatchModification(Map.of(), failed);
+        }
+        result.failed().forEach((id, failure) -> logger.error("Could not modify product {}", id, failure));
+        applied.add(result.modified().size());
+        batches.increment();
+        for (Pending pending : batch) {
+            RuntimeException failure = result.failed().get(pending.id());
+            if (failure == null) {
+                pending.result().complete(Optional.ofNullable(result.modified().get(pending.id())));
+            } else {
+                pending.result().completeExceptionally(failure);
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Stops accepting modifications and waits until the queued ones are applied.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (applier != null) {
+            try {
+                applier.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!applier.isAlive()) {
+                for (Pending pending; (pending = queue.poll()) != null; ) {
+                    reject(pending);
+                }
+            }
+        }
+    }
+}
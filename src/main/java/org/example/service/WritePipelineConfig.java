@@ -0,0 +1,23 @@
+package org.example.service;
+
+/**
+ * @param enabled      whether unconditional modifications go through the {@link WritePipeline}
+ * @param capacity     modifications that may wait in the queue; further ones are rejected
+ * @param maxBatch     most modifications applied in one batch
+ * @param lingerMicros how long the applier waits for more modifications after the first one of a batch
+ */
+public record WritePipelineConfig(boolean enabled, int capacity, int maxBatch, long lingerMicros) {
+    public static final String ENABLED_PROPERTY = "warehouse.writePipeline.enabled";
+    public static final String CAPACITY_PROPERTY = "warehouse.writePipeline.capacity";
+    public static final String MAX_BATCH_PROPERTY = "warehouse.writePipeline.maxBatch";
+    public static final String LINGER_PROPERTY = "warehouse.writePipeline.lingerMicros";
+
+    public static WritePipelineConfig fromSystemProperties() {
+        return new WritePipelineConfig(
+                Boolean.getBoolean(ENABLED_PROPERTY),
+                Integer.getInteger(CAPACITY_PROPERTY, 16_384),
+                Integer.getInteger(MAX_BATCH_PROPERTY, 512),
+                Long.getLong(LINGER_PROPERTY, 200L)
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.example.entities.Product;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Checks products against the constraints declared on {@link Product}. {@link #isValid(Product)} evaluates them by
+ * hand without going through Bean Validation; the full validator only runs for products it rejects, to report why.
+ */
+public class ProductValidator {
+    private static final int MIN_RATING = 1;
+    private static final int MAX_RATING = 10;
+
+    private volatile Today today = Today.now();
+
+    private static class Holder {
+        private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    /**
+     * The current date in the default zone together with the time it stops being current.
+     */
+    private record Today(LocalDate date, long endMillis) {
+        static Today now() {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = LocalDate.now(zone);
+            return new Today(date, date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * Returns true if {@code product} satisfies every constraint of {@link Product}. Never accepts a product the
+     * full validator would reject.
+     */
+    public boolean isValid(Product product) {
+        if (product == null) {
+            return false;
+        }
+        Today current = today;
+        if (System.currentTimeMillis() >= current.endMillis()) {
+            current = Today.now();
+            today = current;
+        }
+        return !blank(product.id())
+                && !blank(product.name())
+                && product.category() != null
+                && product.rating() >= MIN_RATING && product.rating() <= MAX_RATING
+                && product.creationDate() != null && !product.creationDate().isAfter(current.date())
+                && product.lastModifiedDate() != null && !product.lastModifiedDate().isAfter(current.date());
+    }
+
+    /**
+     * Same rule as {@code @NotBlank}: blank if nothing is left after {@link String#trim()}.
+     */
+    private static boolean blank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the full validator. Empty if {@code product} is valid.
+     */
+    public Set<ConstraintViolation<Product>> violations(Product product) {
+        return Holder.VALIDATOR.validate(product);
+    }
+
+    /**
+     * Returns the violations of {@code product} formatted as {@code "field: message, ..."}, or {@code null} if valid.
+     */
+    public String validate(Product product) {
+        if (product == null) {
+            return "product: must not be null";
+        }
+        if (isValid(product)) {
+            return null;
+        }
+        Set<ConstraintViolation<Product>> violations = violations(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
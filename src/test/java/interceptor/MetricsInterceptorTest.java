@@ -0,0 +1,113 @@
+package interceptor;
+
+import jakarta.interceptor.InvocationContext;
+import jakarta.ws.rs.core.Response;
+import org.example.interceptor.LatencyHistogram;
+import org.example.interceptor.MethodMetrics;
+import org.example.interceptor.MetricsInterceptor;
+import org.example.interceptor.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MetricsInterceptorTest {
+
+    public Response getProducts() {
+        return null;
+    }
+
+    public Response getProducts(String category) {
+        return null;
+    }
+
+    public CompletionStage<Response> getProductsAsync() {
+        return null;
+    }
+
+    @Test
+    void quantilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(500_000, histogram.quantile(0.5), 500_000 / 16.0);
+        assertEquals(990_000, histogram.quantile(0.99), 990_000 / 16.0);
+        assertEquals(999_000, histogram.quantile(0.999), 999_000 / 16.0);
+        assertTrue(histogram.quantile(1.0) >= 1_000_000);
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        assertEquals(0, new LatencyHistogram().quantile(0.99));
+    }
+
+    @Test
+    void countsCallsAndErrorsPerMethod() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsInterceptor interceptor = new MetricsInterceptor(registry);
+        Method method = MetricsInterceptorTest.class.getMethod("getProducts");
+        InvocationContext ok = mock(InvocationContext.class);
+        when(ok.getMethod()).thenReturn(method);
+        when(ok.proceed()).thenReturn(Response.ok().build());
+        InvocationContext serverError = mock(InvocationContext.class);
+        when(serverError.getMethod()).thenReturn(method);
+        when(serverError.proceed()).thenReturn(Response.serverError().build());
+        InvocationContext thrown = mock(InvocationContext.class);
+        when(thrown.getMethod()).thenReturn(method);
+        when(thrown.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        interceptor.intercept(ok);
+        interceptor.intercept(ok);
+        interceptor.intercept(serverError);
+        assertThrows(IllegalStateException.class, () -> interceptor.intercept(thrown));
+
+        MethodMetrics.Stats stats = registry.stats().get("MetricsInterceptorTest.getProducts()");
+        assertEquals(4, stats.calls());
+        assertEquals(2, stats.errors());
+        assertTrue(stats.callsPerSecond() > 0);
+        assertTrue(stats.p50Micros() <= stats.p99Micros() && stats.p99Micros() <= stats.p999Micros());
+    }
+
+    @Test
+    void reportsOverloadsSeparately() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsInterceptor interceptor = new MetricsInterceptor(registry);
+        InvocationContext all = mock(InvocationContext.class);
+        when(all.getMethod()).thenReturn(MetricsInterceptorTest.class.getMethod("getProducts"));
+        when(all.proceed()).thenReturn(Response.ok().build());
+        InvocationContext byCategory = mock(InvocationContext.class);
+        when(byCategory.getMethod()).thenReturn(MetricsInterceptorTest.class.getMethod("getProducts", String.class));
+        when(byCategory.proceed()).thenReturn(Response.serverError().build());
+
+        interceptor.intercept(all);
+        interceptor.intercept(byCategory);
+
+        assertEquals(0, registry.stats().get("MetricsInterceptorTest.getProducts()").errors());
+        assertEquals(1, registry.stats().get("MetricsInterceptorTest.getProducts(String)").errors());
+    }
+
+    @Test
+    void recordsCompletionStagesWhenTheyComplete() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsInterceptor interceptor = new MetricsInterceptor(registry);
+        CompletableFuture<Response> pending = new CompletableFuture<>();
+        InvocationContext async = mock(InvocationContext.class);
+        when(async.getMethod()).thenReturn(MetricsInterceptorTest.class.getMethod("getProductsAsync"));
+        when(async.proceed()).thenReturn(pending);
+
+        assertSame(pending, interceptor.intercept(async));
+        assertNull(registry.stats().get("MetricsInterceptorTest.getProductsAsync()"));
+
+        pending.complete(Response.serverError().build());
+        MethodMetrics.Stats stats = registry.stats().get("MetricsInterceptorTest.getProductsAsync()");
+        assertEquals(1, stats.calls());
+        assertEquals(1, stats.errors());
+    }
+}
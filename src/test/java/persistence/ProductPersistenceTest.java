@@ -0,0 +1,206 @@
+package persistence;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.persistence.PersistenceConfig;
+import org.example.service.WarehouseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductPersistenceTest {
+    private final LocalDate now = LocalDate.now();
+    private final List<WarehouseService> services = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    private WarehouseService open() {
+        WarehouseService service = new WarehouseService();
+        service.enablePersistence(new PersistenceConfig(directory, 1, 0));
+        services.add(service);
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(WarehouseService::close);
+    }
+
+    @Test
+    void recoversAddedAndModifiedProducts() {
+        WarehouseService service = open();
+        service.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now.minusDays(3), now.minusDays(3)));
+        service.addProduct(new Product("2", "Jeans", Category.JEANS, 7, now, now));
+        service.modifyProduct("1", "New Shirt", Category.HOODIE, 9);
+        service.close();
+
+        WarehouseService recovered = open();
+        assertEquals(service.getAllProducts(), recovered.getAllProducts());
+        assertEquals(1, recovered.getNumberProductsByCategory(Category.HOODIE));
+        // recovered products are not new writes, so they take no room in the event history
+        assertEquals(0, recovered.getEvents().lastSequence());
+        assertThrows(IllegalArgumentException.class,
+                () -> recovered.addProduct(new Product("2", "Jeans", Category.JEANS, 7, now, now)));
+    }
+
+    @Test
+    void checkpointKeepsOnlyLatestSnapshotAndReplaysTail() throws IOException {
+        WarehouseService service = open();
+        service.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        service.checkpoint();
+        service.addProduct(new Product("2", "Jeans", Category.JEANS, 7, now, now));
+        service.checkpoint();
+        service.addProduct(new Product("3", "Shorts", Category.SHORTS, 3, now, now));
+        service.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.getFileName().toString().startsWith("snapshot-")).count());
+        }
+        WarehouseService recovered = open();
+        assertEquals(List.of("1", "2", "3"), recovered.getAllProducts().stream().map(Product::id).toList());
+    }
+
+    @Test
+    void ignoresTornRecordAtEndOfLog() throws IOException {
+        WarehouseService service = open();
+        service.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        service.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        WarehouseService recovered = open();
+        assertEquals(1, recovered.getAllProducts().size());
+        recovered.addProduct(new Product("2", "Jeans", Category.JEANS, 7, now, now));
+        recovered.close();
+
+        assertEquals(2, open().getAllProducts().size());
+    }
+
+    @Test
+    void stopsReplayAtCorruptSegment() throws IOException {
+        WarehouseService service = open();
+        service.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        service.close();
+        WarehouseService reopened = open();
+        reopened.addProduct(new Product("2", "Jeans", Category.JEANS, 7, now, now));
+        reopened.close();
+
+        Path first;
+        try (Stream<Path> files = Files.list(directory)) {
+            first = files.filter(file -> file.getFileName().toString().startsWith("wal-")).sorted().findFirst().orElseThrow();
+        }
+        Files.write(first, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        assertEquals(List.of("1"), open().getAllProducts().stream().map(Product::id).toList());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.getFileName().toString().endsWith(".discarded")).count());
+        }
+    }
+
+    @Test
+    void recoversNamesOfAnyLength() {
+        WarehouseService service = open();
+        service.addProduct(new Product("1", "\u00e9".repeat(40_000), Category.SHIRT, 5, now, now));
+        service.checkpoint();
+        service.addProduct(new Product("2", "x".repeat(70_000), Category.JEANS, 7, now, now));
+        service.addProduct(new Product("3", "Nul \u0000 and \uD83D\uDC55", Category.JEANS, 7, now, now));
+        service.close();
+
+        assertEquals(service.getAllProducts(), open().getAllProducts());
+    }
+
+    @Test
+    void refusesToStartFromUnreadableSnapshot() throws IOException {
+        WarehouseService service = open();
+        service.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        service.checkpoint();
+        service.close();
+
+        Path snapshot;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshot = files.filter(file -> file.getFileName().toString().startsWith("snapshot-")).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 12] ^= 1;
+        Files.write(snapshot, bytes);
+
+        WarehouseService recovered = new WarehouseService();
+        assertThrows(UncheckedIOException.class,
+                () -> recovered.enablePersistence(new PersistenceConfig(directory, 1, 0)));
+    }
+
+    @Test
+    void concurrentCheckpointsLeaveOneCurrentSnapshot() throws Exception {
+        WarehouseService service = open();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread * 50;
+                tasks.add(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        service.addProduct(new Product(String.valueOf(offset + i), "Shirt", Category.SHIRT, 5, now, now));
+                        service.checkpoint();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        service.checkpoint();
+        service.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.getFileName().toString().startsWith("snapshot-")).count());
+        }
+        assertEquals(200, open().getAllProducts().size());
+    }
+
+    @Test
+    void recoversConcurrentWrites() throws Exception {
+        WarehouseService service = open();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread * 250;
+                tasks.add(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        service.addProduct(new Product(String.valueOf(offset + i), "Shirt", Category.SHIRT, 5, now, now));
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        service.close();
+
+        assertEquals(1000, open().getAllProducts().size());
+    }
+}
@@ -0,0 +1,57 @@
+package persistence;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.persistence.MappedSnapshot;
+import org.example.persistence.SnapshotFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+    private final LocalDate now = LocalDate.now();
+    private final List<Product> products = List.of(
+            new Product("1", "Shirt", Category.SHIRT, 1, now.minusDays(400), now),
+            new Product("2", "Hoodie ärmel", Category.HOODIE, 10, LocalDate.of(1970, 1, 1), now.minusDays(1)),
+            new Product("3", "Jeans Ωmega", Category.JEANS, 5, now, now),
+            new Product("4", "Shorts", Category.SHORTS, 7, now.minusDays(3), now.minusDays(2))
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsProducts() throws IOException {
+        Path file = SnapshotFile.path(directory, 1);
+        SnapshotFile.write(file, products);
+
+        List<Product> read = SnapshotFile.read(file);
+        assertInstanceOf(MappedSnapshot.class, read);
+        assertEquals(products, read);
+    }
+
+    @Test
+    void roundTripsEmptyCatalogue() throws IOException {
+        Path file = SnapshotFile.path(directory, 1);
+        SnapshotFile.write(file, List.of());
+        assertTrue(SnapshotFile.read(file).isEmpty());
+    }
+
+    @Test
+    void rejectsCorruptSnapshot() throws IOException {
+        Path file = SnapshotFile.path(directory, 1);
+        SnapshotFile.write(file, products);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[20] ^= 1;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> SnapshotFile.read(file));
+    }
+}
@@ -0,0 +1,196 @@
+package ratelimit;
+
+import config.CustomJacksonProvider;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import org.example.ratelimit.AdaptiveConcurrencyLimit;
+import org.example.ratelimit.PermitReleaseFilter;
+import org.example.ratelimit.RateLimitConfig;
+import org.example.ratelimit.RateLimitFilter;
+import org.example.ratelimit.RateLimiter;
+import org.example.ratelimit.TokenBuckets;
+import org.example.rest.ResponseCache;
+import org.example.rest.WarehouseResource;
+import org.example.service.WarehouseService;
+import org.jboss.resteasy.mock.MockDispatcherFactory;
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.jboss.resteasy.mock.MockHttpResponse;
+import org.jboss.resteasy.spi.Dispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class RateLimitFilterTest {
+    private final AtomicLong clock = new AtomicLong();
+    private RateLimiter limiter;
+    private Dispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        setUp(new RateLimitConfig(100, 5, 1, 2, 64, false, "X-Client-Id"));
+    }
+
+    private void setUp(RateLimitConfig config) {
+        limiter = new RateLimiter(config, clock::get);
+        dispatcher = MockDispatcherFactory.createDispatcher();
+        dispatcher.getRegistry().addSingletonResource(new WarehouseResource(new WarehouseService(), new ResponseCache()));
+        dispatcher.getProviderFactory().registerProviderInstance(new CustomJacksonProvider());
+        dispatcher.getProviderFactory().registerProviderInstance(new RateLimitFilter(limiter));
+    }
+
+    private int get(String path, String client) throws URISyntaxException {
+        MockHttpRequest request = MockHttpRequest.get(path).header("X-Client-Id", client);
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+        if (response.getStatus() == 429) {
+            assertNotNull(response.getOutputHeaders().getFirst("Retry-After"));
+        }
+        return response.getStatus();
+    }
+
+    @Test
+    void expensiveEndpointsHaveTheirOwnBudgetPerClient() throws URISyntaxException {
+        assertEquals(200, get("/products", "a"));
+        assertEquals(200, get("/products", "a"));
+        assertEquals(429, get("/products", "a"));
+        assertEquals(200, get("/products", "b"));
+        assertEquals(404, get("/products/1", "a"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(200, get("/products", "a"));
+        assertEquals(1, limiter.stats().rejectedExpensive());
+        assertEquals(0, limiter.stats().rejectedCheap());
+    }
+
+    @Test
+    void clientHeaderIsIgnoredUnlessConfigured() throws URISyntaxException {
+        setUp(new RateLimitConfig(100, 5, 1, 2, 64, false, null));
+
+        assertEquals(200, get("/products", "a"));
+        assertEquals(200, get("/products", "b"));
+        assertEquals(429, get("/products", "c"));
+    }
+
+    @Test
+    void permitIsReleasedWhenTheResponseIsNeverFiltered() throws Exception {
+        limiter = new RateLimiter(new RateLimitConfig(100, 5, 1, 2, 64, true, null), clock::get);
+        RateLimitFilter filter = new RateLimitFilter(limiter);
+        ContainerRequestContext context = mock(ContainerRequestContext.class);
+        filter.filter(context);
+        ArgumentCaptor<Object> permit = ArgumentCaptor.forClass(Object.class);
+        verify(context).setProperty(anyString(), permit.capture());
+        assertEquals(1, limiter.stats().inFlight());
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getAttribute(anyString())).thenReturn(permit.getValue());
+        FilterChain failing = (req, res) -> {
+            throw new ServletException("unmapped");
+        };
+        assertThrows(ServletException.class,
+                () -> new PermitReleaseFilter().doFilter(request, mock(HttpServletResponse.class), failing));
+        assertEquals(0, limiter.stats().inFlight());
+
+        when(context.getProperty(anyString())).thenReturn(permit.getValue());
+        filter.filter(context, mock(ContainerResponseContext.class));
+        assertEquals(0, limiter.stats().inFlight());
+    }
+
+    @Test
+    void cheapEndpointsRefillAtTheirRate() throws URISyntaxException {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(404, get("/products/1", "a"));
+        }
+        assertEquals(429, get("/products/1", "a"));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(404, get("/products/1", "a"));
+        assertEquals(429, get("/products/1", "a"));
+        assertEquals(2, limiter.stats().rejectedCheap());
+    }
+
+    @Test
+    void concurrentClientsNeverExceedTheBurst() throws Exception {
+        TokenBuckets buckets = new TokenBuckets(1, 1000, 16, () -> 0L);
+        AtomicInteger admitted = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (buckets.tryAcquire("client") == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        assertEquals(1000, admitted.get());
+    }
+
+    @Test
+    void clientsNeverShareABucket() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 100_000, clock::get);
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(0, buckets.tryAcquire("client-" + i), "client-" + i + " found its bucket already used");
+        }
+    }
+
+    @Test
+    void idleClientsMakeRoomForNewOnes() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 2, clock::get);
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertEquals(0, buckets.tryAcquire("b"));
+        assertTrue(buckets.tryAcquire("c") > 0);
+        assertTrue(buckets.tryAcquire("a") > 0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, buckets.tryAcquire("c"));
+        assertEquals(0, buckets.tryAcquire("a"));
+        assertTrue(buckets.tryAcquire("b") > 0);
+    }
+
+    @Test
+    void eventStreamsDoNotHoldConcurrencySlots() {
+        limiter = new RateLimiter(new RateLimitConfig(100, 1000, 1, 2, 64, true, null), clock::get);
+        for (int i = 0; i < 500; i++) {
+            assertNull(limiter.admit("a", false, false));
+        }
+        assertEquals(0, limiter.stats().inFlight());
+        assertNull(limiter.admit("a", false));
+        assertEquals(1, limiter.stats().inFlight());
+    }
+
+    @Test
+    void concurrencyLimitShrinksWhenLatencyGrows() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 4, 200);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        int unloaded = limit.limit();
+        assertTrue(unloaded > 50, "limit should grow while latency is flat: " + unloaded);
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        assertTrue(limit.limit() < unloaded, "limit should shrink under queueing: " + limit.limit());
+
+        for (int i = 0; i < limit.limit(); i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(limit.limit(), limit.inFlight());
+    }
+}
@@ -0,0 +1,169 @@
+package replication;
+
+import config.CustomJacksonProvider;
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.replication.ReplicationConfig;
+import org.example.replication.ReplicationFilter;
+import org.example.replication.ReplicationFollower;
+import org.example.replication.ReplicationNode;
+import org.example.rest.ResponseCache;
+import org.example.rest.WarehouseResource;
+import org.example.service.WarehouseService;
+import org.jboss.resteasy.mock.MockDispatcherFactory;
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.jboss.resteasy.mock.MockHttpResponse;
+import org.jboss.resteasy.spi.Dispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final List<ReplicationNode> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ReplicationNode::close);
+    }
+
+    private ReplicationNode start(WarehouseService service, ReplicationConfig.Role role, int leaderPort, int retained) {
+        return start(service, role, 0, leaderPort, retained);
+    }
+
+    private ReplicationNode start(WarehouseService service, ReplicationConfig.Role role, int port, int leaderPort,
+                                  int retained) {
+        ReplicationNode node = new ReplicationNode(service,
+                new ReplicationConfig(role, port, "localhost", leaderPort, 16, retained, 50, 500));
+        node.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private static List<Product> products(int from, int to) {
+        List<Product> products = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            products.add(new Product("p" + i, "Product " + i, Category.values()[i % 4], 1 + i % 10, TODAY.minusDays(i), TODAY));
+        }
+        return products;
+    }
+
+    private static List<Product> sorted(WarehouseService service) {
+        return service.getAllProducts().stream().sorted(Comparator.comparing(Product::id)).toList();
+    }
+
+    private static void awaitCaughtUp(ReplicationNode leader, ReplicationNode follower) throws InterruptedException {
+        assertTrue(follower.follower().awaitApplied(leader.leader().sequence(), 10_000));
+    }
+
+    @Test
+    void followersApplyTheLeadersWritesInOrder() throws InterruptedException {
+        WarehouseService leaderService = new WarehouseService();
+        ReplicationNode leader = start(leaderService, ReplicationConfig.Role.LEADER, 0, 1000);
+        WarehouseService firstService = new WarehouseService();
+        WarehouseService secondService = new WarehouseService();
+        ReplicationNode first = start(firstService, ReplicationConfig.Role.FOLLOWER, leader.leader().port(), 0);
+        ReplicationNode second = start(secondService, ReplicationConfig.Role.FOLLOWER, leader.leader().port(), 0);
+
+        leaderService.addProducts(products(0, 100));
+        leaderService.addProduct(products(100, 101).getFirst());
+        leaderService.modifyProduct("p7", "Renamed", Category.HOODIE, 3);
+        leaderService.modifyProduct("p7", "Renamed again", Category.HOODIE, 4);
+        assertEquals(103, leader.leader().sequence());
+
+        awaitCaughtUp(leader, first);
+        awaitCaughtUp(leader, second);
+        assertEquals(sorted(leaderService), sorted(firstService));
+        assertEquals(sorted(leaderService), sorted(secondService));
+        assertEquals("Renamed again", secondService.getProductById("p7").orElseThrow().name());
+        assertEquals(leaderService.getNumberProductsByCategory(Category.HOODIE),
+                firstService.getNumberProductsByCategory(Category.HOODIE));
+        assertEquals(2, leader.status().followers());
+        assertEquals(0, leader.leader().snapshotsSent());
+    }
+
+    @Test
+    void laggingFollowerCatchesUpFromSnapshot() throws InterruptedException {
+        WarehouseService leaderService = new WarehouseService();
+        ReplicationNode leader = start(leaderService, ReplicationConfig.Role.LEADER, 0, 8);
+        leaderService.addProducts(products(0, 50));
+
+        WarehouseService followerService = new WarehouseService();
+        ReplicationNode follower = start(followerService, ReplicationConfig.Role.FOLLOWER, leader.leader().port(), 0);
+        awaitCaughtUp(leader, follower);
+        assertEquals(1, leader.leader().snapshotsSent());
+        assertEquals(sorted(leaderService), sorted(followerService));
+
+        leaderService.addProducts(products(50, 55));
+        leaderService.modifyProduct("p3", "Renamed", Category.JEANS, 9);
+        awaitCaughtUp(leader, follower);
+        assertEquals(1, leader.leader().snapshotsSent());
+        assertEquals(sorted(leaderService), sorted(followerService));
+        assertEquals(56, follower.status().sequence());
+    }
+
+    @Test
+    void followerResyncsWithRestartedLeader() throws InterruptedException {
+        WarehouseService leaderService = new WarehouseService();
+        ReplicationNode leader = start(leaderService, ReplicationConfig.Role.LEADER, 0, 1000);
+        int port = leader.leader().port();
+        leaderService.addProducts(products(0, 10));
+        WarehouseService followerService = new WarehouseService();
+        ReplicationNode follower = start(followerService, ReplicationConfig.Role.FOLLOWER, port, 0);
+        awaitCaughtUp(leader, follower);
+
+        // the restarted leader numbers its writes from 1 again, past the position the follower resumes from
+        leader.close();
+        WarehouseService restartedService = new WarehouseService();
+        ReplicationNode restarted = start(restartedService, ReplicationConfig.Role.LEADER, port, 0, 1000);
+        restartedService.addProducts(products(100, 112));
+        awaitCaughtUp(restarted, follower);
+
+        assertEquals(1, restarted.leader().snapshotsSent());
+        assertTrue(sorted(followerService).containsAll(sorted(restartedService)));
+    }
+
+    @Test
+    void followerRefusesWritesAndStaleReads() throws Exception {
+        WarehouseService leaderService = new WarehouseService();
+        ReplicationNode leader = start(leaderService, ReplicationConfig.Role.LEADER, 0, 1000);
+        leaderService.addProducts(products(0, 3));
+        WarehouseService followerService = new WarehouseService();
+        ReplicationNode follower = start(followerService, ReplicationConfig.Role.FOLLOWER, leader.leader().port(), 0);
+        awaitCaughtUp(leader, follower);
+
+        Dispatcher dispatcher = MockDispatcherFactory.createDispatcher();
+        dispatcher.getRegistry().addSingletonResource(new WarehouseResource(followerService, new ResponseCache()));
+        dispatcher.getProviderFactory().registerProviderInstance(new CustomJacksonProvider());
+        dispatcher.getProviderFactory().registerProviderInstance(new ReplicationFilter(follower));
+
+        MockHttpResponse read = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/p1"), read);
+        assertEquals(200, read.getStatus());
+
+        MockHttpResponse write = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.post("/products").contentType("application/json").content(
+                "{\"id\":\"x\",\"name\":\"X\",\"category\":\"JEANS\",\"rating\":5,\"creationDate\":\"2024-01-01\",\"lastModifiedDate\":\"2024-01-01\"}"
+                        .getBytes()), write);
+        assertEquals(503, write.getStatus());
+        assertTrue(followerService.getProductById("x").isEmpty());
+
+        leader.close();
+        ReplicationFollower replica = follower.follower();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (replica.isFresh() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        MockHttpResponse stale = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/p1"), stale);
+        assertEquals(503, stale.getStatus());
+        assertNotNull(stale.getOutputHeaders().getFirst("Retry-After"));
+    }
+}
@@ -0,0 +1,118 @@
+package resource;
+
+import config.CustomJacksonProvider;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Providers;
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.entities.ProductUpdate;
+import org.example.rest.AsyncExecutor;
+import org.example.rest.AsyncWarehouseResource;
+import org.example.rest.ResponseCache;
+import org.example.service.WarehouseService;
+import org.example.service.WritePipeline;
+import org.example.service.WritePipelineConfig;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class AsyncWarehouseResourceTest {
+    private final LocalDate now = LocalDate.now();
+
+    WarehouseService warehouseService;
+    AsyncExecutor executor;
+    AsyncWarehouseResource resource;
+    Providers providers;
+
+    @BeforeEach
+    public void setUp() {
+        warehouseService = new WarehouseService();
+        executor = new AsyncExecutor(4);
+        resource = new AsyncWarehouseResource(warehouseService, new ResponseCache(), executor);
+        ResteasyProviderFactory providerFactory = ResteasyProviderFactory.newInstance();
+        providerFactory.registerProviderInstance(new CustomJacksonProvider());
+        providers = providerFactory;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void shouldServeProductAsynchronously() throws Exception {
+        warehouseService.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        Request request = mock(Request.class);
+
+        Response response = resource.getProductById("1", request, providers).toCompletableFuture().get(1, TimeUnit.SECONDS);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("Shirt", new JSONObject(new String((byte[]) response.getEntity(), StandardCharsets.UTF_8)).getString("name"));
+    }
+
+    @Test
+    void shouldAddProductAsynchronously() throws Exception {
+        Product product = new Product("1", "Shirt", Category.SHIRT, 5, now, now);
+
+        Response response = resource.addProduct(product).toCompletableFuture().get(1, TimeUnit.SECONDS);
+
+        assertEquals(201, response.getStatus());
+        assertTrue(warehouseService.getProductById("1").isPresent());
+        assertEquals(0, executor.inFlight());
+    }
+
+    @Test
+    void shouldRejectWith429WhenSaturated() throws Exception {
+        AsyncExecutor saturated = new AsyncExecutor(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletionStage<Response> running = saturated.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Response.ok().build();
+        });
+
+        Response rejected = saturated.submit(() -> Response.ok().build()).toCompletableFuture().get(1, TimeUnit.SECONDS);
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeaderString("Retry-After"));
+
+        release.countDown();
+        assertEquals(200, running.toCompletableFuture().get(1, TimeUnit.SECONDS).getStatus());
+        assertEquals(200, saturated.submit(() -> Response.ok().build()).toCompletableFuture().get(1, TimeUnit.SECONDS).getStatus());
+        saturated.close();
+    }
+
+    @Test
+    void shouldModifyThroughWritePipeline() throws Exception {
+        warehouseService.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        WritePipeline pipeline = new WritePipeline(warehouseService, new WritePipelineConfig(true, 16, 8, 100));
+        AsyncWarehouseResource pipelined = new AsyncWarehouseResource(warehouseService, new ResponseCache(), executor, pipeline);
+        Request request = mock(Request.class);
+
+        Response response = pipelined.modifyProduct("1", new ProductUpdate("Renamed", Category.HOODIE, 8), null, request)
+                .toCompletableFuture().get(1, TimeUnit.SECONDS);
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getHeaderString("ETag").endsWith("-2\""));
+        assertEquals("Renamed", warehouseService.getProductById("1").orElseThrow().name());
+
+        Response missing = pipelined.modifyProduct("2", new ProductUpdate("Renamed", Category.HOODIE, 8), null, request)
+                .toCompletableFuture().get(1, TimeUnit.SECONDS);
+        assertEquals(404, missing.getStatus());
+        assertEquals(0, executor.inFlight());
+        pipeline.close();
+    }
+}
@@ -0,0 +1,158 @@
+package resource;
+
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.rest.EventStreams;
+import org.example.rest.ProductEventStream;
+import org.example.service.WarehouseService;
+import org.jboss.resteasy.plugins.providers.sse.SseImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductEventStreamTest {
+    private final LocalDate now = LocalDate.now();
+
+    WarehouseService warehouseService;
+    CollectingSink sink;
+
+    static class CollectingSink implements SseEventSink {
+        final BlockingQueue<OutboundSseEvent> events = new LinkedBlockingQueue<>();
+        volatile boolean closed;
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent event) {
+            events.add(event);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        OutboundSseEvent next() throws InterruptedException {
+            OutboundSseEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "no event received");
+            return event;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        warehouseService = new WarehouseService();
+        sink = new CollectingSink();
+    }
+
+    private Thread stream(Long after) {
+        return Thread.ofVirtual().start(new ProductEventStream(warehouseService, sink, new SseImpl(), after));
+    }
+
+    @Test
+    void shouldResumeAfterSequenceAndPushNewEvents() throws InterruptedException {
+        warehouseService.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        warehouseService.addProduct(new Product("2", "Jeans", Category.JEANS, 5, now, now));
+        Thread thread = stream(1L);
+
+        OutboundSseEvent replayed = sink.next();
+        assertEquals("added", replayed.getName());
+        assertEquals("2", replayed.getId());
+        assertEquals("Jeans", ((Product) replayed.getData()).name());
+
+        warehouseService.modifyProduct("1", "New Shirt", Category.SHIRT, 9);
+        OutboundSseEvent pushed = sink.next();
+        assertEquals("modified", pushed.getName());
+        assertEquals("3", pushed.getId());
+        assertEquals("New Shirt", ((Product) pushed.getData()).name());
+
+        sink.close();
+        warehouseService.addProduct(new Product("3", "Hoodie", Category.HOODIE, 5, now, now));
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    void shouldSendSnapshotWhenEventsAreNoLongerRetained() throws InterruptedException {
+        warehouseService.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        Thread thread = stream(-1L);
+
+        OutboundSseEvent snapshot = sink.next();
+        assertEquals("snapshot", snapshot.getName());
+        assertEquals("1", snapshot.getId());
+        assertEquals(List.of("1"), ((List<?>) snapshot.getData()).stream().map(p -> ((Product) p).id()).toList());
+
+        warehouseService.addProduct(new Product("2", "Jeans", Category.JEANS, 5, now, now));
+        assertEquals("2", sink.next().getId());
+        sink.close();
+        warehouseService.addProduct(new Product("3", "Hoodie", Category.HOODIE, 5, now, now));
+        thread.join(5000);
+    }
+
+    @Test
+    void shouldSendSnapshotWhenResumingAheadOfTheLog() throws InterruptedException {
+        warehouseService.addProduct(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        Thread thread = stream(42L);
+
+        OutboundSseEvent snapshot = sink.next();
+        assertEquals("snapshot", snapshot.getName());
+        assertEquals("1", snapshot.getId());
+
+        warehouseService.addProduct(new Product("2", "Jeans", Category.JEANS, 5, now, now));
+        assertEquals("2", sink.next().getId());
+        sink.close();
+        warehouseService.addProduct(new Product("3", "Hoodie", Category.HOODIE, 5, now, now));
+        thread.join(5000);
+    }
+
+    @Test
+    void shouldSendSnapshotInPages() throws InterruptedException {
+        int count = ProductEventStream.SNAPSHOT_PAGE_SIZE + 1;
+        for (int i = 0; i < count; i++) {
+            warehouseService.addProduct(new Product(String.format("%05d", i), "Shirt", Category.SHIRT, 5, now, now));
+        }
+        Thread thread = stream(-1L);
+
+        OutboundSseEvent first = sink.next();
+        assertEquals("snapshot", first.getName());
+        assertNull(first.getId());
+        assertEquals(ProductEventStream.SNAPSHOT_PAGE_SIZE, ((List<?>) first.getData()).size());
+        OutboundSseEvent last = sink.next();
+        assertEquals("snapshot-page", last.getName());
+        assertEquals(String.valueOf(count), last.getId());
+        assertEquals(List.of(String.format("%05d", count - 1)),
+                ((List<?>) last.getData()).stream().map(p -> ((Product) p).id()).toList());
+
+        sink.close();
+        warehouseService.addProduct(new Product("x", "Hoodie", Category.HOODIE, 5, now, now));
+        thread.join(5000);
+    }
+
+    @Test
+    void shouldLimitSubscribersAndStopThemOnClose() throws InterruptedException {
+        EventStreams streams = new EventStreams(1);
+        assertTrue(streams.start(new ProductEventStream(warehouseService, sink, new SseImpl(), null)));
+        assertFalse(streams.start(new ProductEventStream(warehouseService, new CollectingSink(), new SseImpl(), null)));
+        assertEquals(1, streams.subscribers());
+
+        streams.close();
+        assertTrue(sink.isClosed());
+        assertEquals(0, streams.subscribers());
+        assertFalse(streams.start(new ProductEventStream(warehouseService, new CollectingSink(), new SseImpl(), null)));
+    }
+}
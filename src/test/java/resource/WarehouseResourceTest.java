@@ -8,6 +8,11 @@ import jakarta.validation.*;
 import jakarta.ws.rs.core.MediaType;
 import org.example.entities.Category;
 import org.example.entities.Product;
+import org.example.exceptionmapper.ConstraintViolationExceptionHandler;
+import org.example.persistence.ProductCodec;
+import org.example.rest.ProductBinaryProvider;
+import org.example.rest.ResponseCache;
+import org.example.rest.WarehouseMediaType;
 import org.example.rest.WarehouseResource;
 import org.example.service.WarehouseService;
 import org.jboss.resteasy.mock.MockDispatcherFactory;
@@ -23,7 +28,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import config.CustomJacksonProvider;
 
-import java.io.UnsupportedEncodingException;
+import java.io.*;
 import java.net.URISyntaxException;
 import java.time.LocalDate;
 import java.util.List;
@@ -40,6 +45,8 @@ public class WarehouseResourceTest {
     @Mock
     WarehouseService warehouseService;
 
+    ResponseCache responseCache;
+
     @InjectMocks
     WarehouseResource warehouseResource;
 
@@ -60,7 +67,8 @@ public class WarehouseResourceTest {
     @BeforeEach
     public void setUp() {
         warehouseService = new WarehouseService();
-        warehouseResource = new WarehouseResource(warehouseService);
+        responseCache = new ResponseCache();
+        warehouseResource = new WarehouseResource(warehouseService, responseCache);
         dispatcher = MockDispatcherFactory.createDispatcher();
         dispatcher.getRegistry().addSingletonResource(warehouseResource);
         CustomJacksonProvider customJacksonProvider = new CustomJacksonProvider();
@@ -82,6 +90,62 @@ public class WarehouseResourceTest {
         assertEquals(200, response.getStatus());
     }
 
+    @Test
+    void shouldReturnFirstPageWithNextLink() throws URISyntaxException, UnsupportedEncodingException, JSONException {
+        for (int i = 1; i <= 5; i++) {
+            warehouseService.addProduct(new Product(String.valueOf(i), "Shirt", Category.SHIRT, 5, now, now));
+        }
+        MockHttpRequest request = MockHttpRequest.get("/products?limit=2");
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        JSONArray responseJson = new JSONArray(response.getContentAsString());
+        assertEquals(2, responseJson.length());
+        assertEquals("2", responseJson.getJSONObject(1).getString("id"));
+        assertTrue(response.getOutputHeaders().getFirst("Link").toString().contains("after=2"));
+    }
+
+    @Test
+    void shouldReturnLastPageAfterCursorWithoutNextLink() throws URISyntaxException, UnsupportedEncodingException, JSONException {
+        for (int i = 1; i <= 5; i++) {
+            warehouseService.addProduct(new Product(String.valueOf(i), "Shirt", Category.SHIRT, 5, now, now));
+        }
+        MockHttpRequest request = MockHttpRequest.get("/products?after=3&limit=10");
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        JSONArray responseJson = new JSONArray(response.getContentAsString());
+        assertEquals(2, responseJson.length());
+        assertEquals("4", responseJson.getJSONObject(0).getString("id"));
+        assertNull(response.getOutputHeaders().getFirst("Link"));
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidPageSize() throws URISyntaxException {
+        MockHttpRequest request = MockHttpRequest.get("/products?limit=0");
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    void shouldStreamProductsAsNdjson() throws URISyntaxException, UnsupportedEncodingException, JSONException, JsonProcessingException {
+        Product other = new Product("2", "Jeans", Category.JEANS, 7, now, now);
+        warehouseService.addProduct(product);
+        warehouseService.addProduct(other);
+        MockHttpRequest request = MockHttpRequest.get("/products").accept(WarehouseMediaType.APPLICATION_NDJSON);
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(convertProductToJson(product).toString(), new JSONObject(lines[0]).toString());
+        assertEquals(convertProductToJson(other).toString(), new JSONObject(lines[1]).toString());
+    }
+
     @Test
     void shouldFindProductAndReturnStatus200() throws URISyntaxException, UnsupportedEncodingException, JSONException, JsonProcessingException {
         MockHttpRequest request = MockHttpRequest.get("/products/1");
@@ -94,6 +158,280 @@ public class WarehouseResourceTest {
         assertEquals(expectedJson.toString(), responseJson.toString());
     }
 
+    @Test
+    void shouldModifyProductWhenIfMatchIsCurrent() throws URISyntaxException, UnsupportedEncodingException, JSONException {
+        warehouseService.addProduct(product);
+        MockHttpResponse get = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/1"), get);
+        String etag = get.getOutputHeaders().getFirst("ETag").toString();
+
+        MockHttpRequest request = MockHttpRequest.put("/products/1")
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"New Shirt\",\"category\":\"HOODIE\",\"rating\":9}".getBytes());
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("New Shirt", new JSONObject(response.getContentAsString()).getString("name"));
+        assertNotEquals(etag, response.getOutputHeaders().getFirst("ETag").toString());
+        assertEquals(Category.HOODIE, warehouseService.getProductById("1").orElseThrow().category());
+    }
+
+    @Test
+    void shouldRejectModificationWithStaleIfMatch() throws URISyntaxException {
+        warehouseService.addProduct(product);
+        MockHttpResponse get = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/1"), get);
+        String etag = get.getOutputHeaders().getFirst("ETag").toString();
+        warehouseService.modifyProduct("1", "Other", Category.SHIRT, 3);
+
+        MockHttpRequest request = MockHttpRequest.put("/products/1")
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"New Shirt\",\"category\":\"HOODIE\",\"rating\":9}".getBytes());
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(412, response.getStatus());
+        assertEquals("Other", warehouseService.getProductById("1").orElseThrow().name());
+    }
+
+    @Test
+    void shouldReturn404WhenModifyingUnknownProduct() throws URISyntaxException {
+        MockHttpRequest request = MockHttpRequest.put("/products/42")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"New Shirt\",\"category\":\"HOODIE\",\"rating\":9}".getBytes());
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+        assertEquals(404, response.getStatus());
+    }
+
+    @Test
+    void shouldAnswerConditionalGetWith304UntilCatalogueChanges() throws URISyntaxException {
+        warehouseService.addProduct(product);
+        MockHttpResponse first = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products"), first);
+        String etag = first.getOutputHeaders().getFirst("ETag").toString();
+        assertNotNull(first.getOutputHeaders().getFirst("Last-Modified"));
+
+        MockHttpResponse unchanged = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products").header("If-None-Match", etag), unchanged);
+        assertEquals(304, unchanged.getStatus());
+        assertEquals(0, unchanged.getOutput().length);
+
+        warehouseService.addProduct(new Product("2", "Jeans", Category.JEANS, 5, now, now));
+        MockHttpResponse changed = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products").header("If-None-Match", etag), changed);
+        assertEquals(200, changed.getStatus());
+    }
+
+    @Test
+    void shouldKeepCategoryETagWhenOtherCategoryChanges() throws URISyntaxException {
+        warehouseService.addProduct(product);
+        MockHttpResponse first = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/category/shirt"), first);
+        String etag = first.getOutputHeaders().getFirst("ETag").toString();
+
+        warehouseService.addProduct(new Product("2", "Jeans", Category.JEANS, 5, now, now));
+        MockHttpResponse unchanged = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/category/shirt").header("If-None-Match", etag), unchanged);
+        assertEquals(304, unchanged.getStatus());
+
+        warehouseService.modifyProduct("2", "Shirt", Category.SHIRT, 5);
+        MockHttpResponse changed = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/category/shirt").header("If-None-Match", etag), changed);
+        assertEquals(200, changed.getStatus());
+    }
+
+    @Test
+    void shouldAnswerConditionalGetOfProductWith304() throws URISyntaxException {
+        warehouseService.addProduct(product);
+        MockHttpResponse first = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/1"), first);
+        String etag = first.getOutputHeaders().getFirst("ETag").toString();
+
+        MockHttpResponse unchanged = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/1").header("If-None-Match", etag), unchanged);
+        assertEquals(304, unchanged.getStatus());
+    }
+
+    @Test
+    void shouldServeCachedBodiesUntilAffectedByWrite() throws URISyntaxException, UnsupportedEncodingException, JSONException {
+        warehouseService.addProduct(product);
+        dispatcher.invoke(MockHttpRequest.get("/products/category/shirt"), new MockHttpResponse());
+        dispatcher.invoke(MockHttpRequest.get("/products/category/shirt"), new MockHttpResponse());
+        assertEquals(1, responseCache.stats().hits());
+        assertEquals(1, responseCache.stats().misses());
+
+        warehouseService.addProduct(new Product("2", "Jeans", Category.JEANS, 5, now, now));
+        dispatcher.invoke(MockHttpRequest.get("/products/category/shirt"), new MockHttpResponse());
+        assertEquals(2, responseCache.stats().hits());
+
+        warehouseService.addProduct(new Product("3", "Other Shirt", Category.SHIRT, 5, now, now));
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products/category/shirt"), response);
+        assertEquals(2, responseCache.stats().misses());
+        assertEquals(2, new JSONArray(response.getContentAsString()).length());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBodiesOverBudget() throws URISyntaxException {
+        responseCache = new ResponseCache(300);
+        dispatcher.getRegistry().removeRegistrations(WarehouseResource.class);
+        dispatcher.getRegistry().addSingletonResource(new WarehouseResource(warehouseService, responseCache));
+        for (int i = 1; i <= 5; i++) {
+            warehouseService.addProduct(new Product(String.valueOf(i), "Shirt", Category.SHIRT, 5, now, now));
+            dispatcher.invoke(MockHttpRequest.get("/products/" + i), new MockHttpResponse());
+        }
+        ResponseCache.Stats stats = responseCache.stats();
+        assertTrue(stats.evictions() > 0);
+        assertTrue(stats.bytes() <= 300);
+    }
+
+    @Test
+    void shouldStreamCatalogueTooLargeForCacheWithoutCachingIt() throws URISyntaxException, UnsupportedEncodingException, JSONException {
+        responseCache = new ResponseCache(300);
+        dispatcher.getRegistry().removeRegistrations(WarehouseResource.class);
+        dispatcher.getRegistry().addSingletonResource(new WarehouseResource(warehouseService, responseCache));
+        for (int i = 1; i <= 10; i++) {
+            warehouseService.addProduct(new Product(String.valueOf(i), "Shirt", Category.SHIRT, 5, now, now));
+        }
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products"), response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(10, new JSONArray(response.getContentAsString()).length());
+        assertEquals("Accept", response.getOutputHeaders().getFirst("Vary"));
+        assertEquals(0, responseCache.stats().misses());
+    }
+
+    @Test
+    void shouldSearchProductsByNamePrefix() throws URISyntaxException, UnsupportedEncodingException, JSONException {
+        warehouseService.addProduct(product);
+        warehouseService.addProduct(new Product("2", "Blue Jeans", Category.JEANS, 7, now, now));
+        MockHttpRequest request = MockHttpRequest.get("/products/search?q=blu&category=jeans");
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        JSONArray responseJson = new JSONArray(response.getContentAsString());
+        assertEquals(1, responseJson.length());
+        assertEquals("2", responseJson.getJSONObject(0).getString("id"));
+    }
+
+    @Test
+    void shouldRejectSearchWithoutQuery() throws URISyntaxException {
+        MockHttpRequest request = MockHttpRequest.get("/products/search?q=%20");
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    void shouldQueryProductsWithCombinedFilters() throws URISyntaxException, UnsupportedEncodingException, JSONException {
+        warehouseService.addProduct(product);
+        warehouseService.addProduct(new Product("2", "Blue Jeans", Category.JEANS, 7, now, now));
+        warehouseService.addProduct(new Product("3", "Black Jeans", Category.JEANS, 9, now, now));
+        warehouseService.addProduct(new Product("4", "Grey Jeans", Category.JEANS, 2, now, now));
+        MockHttpRequest request = MockHttpRequest.get("/products/query?category=jeans&minRating=5&prefix=b&sort=-rating");
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        JSONArray responseJson = new JSONArray(response.getContentAsString());
+        assertEquals(2, responseJson.length());
+        assertEquals("3", responseJson.getJSONObject(0).getString("id"));
+        assertEquals("2", responseJson.getJSONObject(1).getString("id"));
+        assertNotNull(response.getOutputHeaders().getFirst("X-Query-Plan"));
+    }
+
+    @Test
+    void shouldNegotiateBinaryProductList() throws URISyntaxException, IOException {
+        dispatcher.getProviderFactory().registerProviderInstance(new ProductBinaryProvider());
+        warehouseService.addProduct(product);
+        warehouseService.addProduct(new Product("2", "Blue Jeans", Category.JEANS, 7, now.minusDays(3), now));
+
+        MockHttpRequest request = MockHttpRequest.get("/products").accept(WarehouseMediaType.APPLICATION_PRODUCTS);
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+        assertEquals(200, response.getStatus());
+        assertEquals(WarehouseMediaType.APPLICATION_PRODUCTS_TYPE,
+                MediaType.valueOf(response.getOutputHeaders().getFirst("Content-Type").toString()));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(response.getOutput()));
+        assertEquals(2, in.readInt());
+        assertEquals(product, ProductCodec.read(in));
+        assertEquals("2", ProductCodec.read(in).id());
+
+        MockHttpResponse json = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/products"), json);
+        assertNotEquals(response.getOutputHeaders().getFirst("ETag"), json.getOutputHeaders().getFirst("ETag"));
+    }
+
+    @Test
+    void shouldImportBinaryBatch() throws URISyntaxException, IOException {
+        dispatcher.getProviderFactory().registerProviderInstance(new ProductBinaryProvider());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeInt(2);
+        ProductCodec.write(out, product);
+        ProductCodec.write(out, new Product("2", "Blue Jeans", Category.JEANS, 7, now, now));
+        MockHttpRequest request = MockHttpRequest.post("/products/batch")
+                .contentType(WarehouseMediaType.APPLICATION_PRODUCTS)
+                .content(body.toByteArray());
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(List.of(product), warehouseService.getProductById("1").stream().toList());
+        assertTrue(warehouseService.getProductById("2").isPresent());
+
+        MockHttpResponse truncated = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.post("/products/batch")
+                .contentType(WarehouseMediaType.APPLICATION_PRODUCTS)
+                .content(new byte[]{0, 0, 0, 5, 0}), truncated);
+        assertEquals(400, truncated.getStatus());
+    }
+
+    @Test
+    void shouldRejectQueryWithUnknownSortKey() throws URISyntaxException {
+        MockHttpRequest request = MockHttpRequest.get("/products/query?sort=price");
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    void shouldReturnTopRatedAndHistogramForWindow() throws URISyntaxException, UnsupportedEncodingException, JSONException {
+        warehouseService.addProduct(product);
+        warehouseService.addProduct(new Product("2", "Blue Jeans", Category.JEANS, 7, now.minusDays(3), now));
+        warehouseService.addProduct(new Product("3", "Old Jeans", Category.JEANS, 9, now.minusDays(40), now));
+        String window = "from=" + now.minusDays(7) + "&to=" + now;
+
+        MockHttpResponse topRated = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/analytics/top-rated?" + window), topRated);
+        assertEquals(200, topRated.getStatus());
+        JSONArray products = new JSONArray(topRated.getContentAsString());
+        assertEquals(2, products.length());
+        assertEquals("2", products.getJSONObject(0).getString("id"));
+        assertEquals("1", products.getJSONObject(1).getString("id"));
+
+        MockHttpResponse histogram = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/analytics/rating-histogram?" + window + "&category=jeans"), histogram);
+        assertEquals(200, histogram.getStatus());
+        JSONArray counts = new JSONArray(histogram.getContentAsString());
+        assertEquals(10, counts.length());
+        assertEquals(1, counts.getJSONObject(6).getInt("count"));
+        assertEquals(0, counts.getJSONObject(8).getInt("count"));
+    }
+
+    @Test
+    void shouldRejectAnalyticsWindowEndingBeforeItStarts() throws URISyntaxException {
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(MockHttpRequest.get("/analytics/created-per-day?from=" + now + "&to=" + now.minusDays(1)), response);
+        assertEquals(400, response.getStatus());
+    }
+
     @Test
     void shouldNotFindProductAndReturnStatus404() throws URISyntaxException {
         MockHttpRequest request = MockHttpRequest.get("/products/145e6");
@@ -152,6 +490,71 @@ public class WarehouseResourceTest {
         factory.close();
     }
 
+    @Test
+    void shouldRejectInvalidProductWithViolationMessages() throws URISyntaxException, JsonProcessingException, UnsupportedEncodingException, JSONException {
+        dispatcher.getProviderFactory().registerProviderInstance(new ConstraintViolationExceptionHandler());
+        MockHttpRequest request = MockHttpRequest.post("/products");
+        request.contentType(MediaType.APPLICATION_JSON);
+        request.content(getObjectMapper().writeValueAsBytes(new Product("9", "", Category.SHIRT, 11, now, now)));
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+
+        assertEquals(400, response.getStatus());
+        JSONObject body = new JSONObject(response.getContentAsString());
+        assertEquals("Validation error", body.getString("error"));
+        assertTrue(body.getString("message").contains("name: Name must not be blank"), body.getString("message"));
+        assertTrue(body.getString("message").contains("rating: Rating must be between 1 and 10"), body.getString("message"));
+        assertTrue(warehouseService.getProductById("9").isEmpty());
+    }
+
+    @Test
+    void shouldImportBatchAndReportErrors() throws URISyntaxException, JsonProcessingException, UnsupportedEncodingException, JSONException {
+        warehouseService.addProduct(product);
+        List<Product> batch = List.of(
+                new Product("2", "Jeans", Category.JEANS, 5, now, now),
+                product,
+                new Product("3", "", Category.SHORTS, 5, now, now)
+        );
+        MockHttpRequest request = MockHttpRequest.post("/products/batch");
+        MockHttpResponse response = new MockHttpResponse();
+        request.content(getObjectMapper().writeValueAsBytes(batch));
+        request.contentType(MediaType.APPLICATION_JSON);
+
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        JSONObject result = new JSONObject(response.getContentAsString());
+        assertEquals(1, result.getInt("accepted"));
+        JSONArray errors = result.getJSONArray("errors");
+        assertEquals(2, errors.length());
+        assertEquals(1, errors.getJSONObject(0).getInt("index"));
+        assertEquals(2, errors.getJSONObject(1).getInt("index"));
+        assertTrue(warehouseService.getProductById("2").isPresent());
+    }
+
+    @Test
+    void shouldImportNdjsonBatchAndReportMalformedLines() throws URISyntaxException, JsonProcessingException, UnsupportedEncodingException, JSONException {
+        ObjectMapper mapper = getObjectMapper();
+        String body = mapper.writeValueAsString(new Product("2", "Jeans", Category.JEANS, 5, now, now)) + "\n"
+                + "{not json\n"
+                + "\n"
+                + mapper.writeValueAsString(new Product("3", "Shorts", Category.SHORTS, 5, now, now)) + "\n";
+        MockHttpRequest request = MockHttpRequest.post("/products/batch");
+        MockHttpResponse response = new MockHttpResponse();
+        request.content(body.getBytes());
+        request.contentType(WarehouseMediaType.APPLICATION_NDJSON);
+
+        dispatcher.invoke(request, response);
+
+        assertEquals(200, response.getStatus());
+        JSONObject result = new JSONObject(response.getContentAsString());
+        assertEquals(2, result.getInt("accepted"));
+        JSONArray errors = result.getJSONArray("errors");
+        assertEquals(1, errors.length());
+        assertEquals(1, errors.getJSONObject(0).getInt("index"));
+        assertEquals(2, warehouseService.getAllProducts().size());
+    }
+
     @Test
     void shouldReturnBadRequestForDuplicateProductId() throws URISyntaxException, JsonProcessingException {
         warehouseService.addProduct(product);
@@ -0,0 +1,191 @@
+package service;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.service.ProductEvent;
+import org.example.service.ProductEventLog;
+import org.example.service.ProductStore;
+import org.example.service.VersionConflictException;
+import org.example.service.VersionedProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductStoreTest {
+    private final LocalDate now = LocalDate.now();
+    private ProductStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ProductStore();
+    }
+
+    @Test
+    void insertRejectsDuplicateId() {
+        assertTrue(store.insert(new Product("1", "Shirt", Category.SHIRT, 5, now, now)));
+        assertFalse(store.insert(new Product("1", "Other", Category.JEANS, 3, now, now)));
+        assertEquals("Shirt", store.get("1").orElseThrow().name());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void replaceUpdatesExistingProduct() {
+        store.insert(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        Optional<Product> replaced = store.replace("1", product ->
+                new Product(product.id(), "New Shirt", product.category(), 9, product.creationDate(), now));
+        assertTrue(replaced.isPresent());
+        assertEquals("New Shirt", store.get("1").orElseThrow().name());
+        assertEquals(1, store.snapshot().size());
+    }
+
+    @Test
+    void replaceIncrementsVersion() {
+        store.insert(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        assertEquals(1, store.getVersioned("1").orElseThrow().version());
+        VersionedProduct replaced = store.replace("1", 1, product -> product).orElseThrow();
+        assertEquals(2, replaced.version());
+        assertEquals(2, store.getVersioned("1").orElseThrow().version());
+    }
+
+    @Test
+    void replaceRejectsStaleVersion() {
+        store.insert(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        store.replace("1", product -> product);
+        VersionConflictException conflict = assertThrows(VersionConflictException.class,
+                () -> store.replace("1", 1, product -> product));
+        assertEquals(2, conflict.getCurrentVersion());
+        assertEquals(2, store.getVersioned("1").orElseThrow().version());
+    }
+
+    @Test
+    void replaceIgnoresMissingProduct() {
+        assertTrue(store.replace("missing", product -> product).isEmpty());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void getReturnsEmptyForUnknownOrNullId() {
+        assertTrue(store.get("missing").isEmpty());
+        assertTrue(store.get(null).isEmpty());
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterWrites() {
+        store.insert(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        List<Product> snapshot = store.snapshot();
+        store.insert(new Product("2", "Jeans", Category.JEANS, 5, now, now));
+        assertEquals(1, snapshot.size());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(null));
+    }
+
+    @Test
+    void concurrentInsertsOfSameIdOnlySucceedOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int id = 0; id < 1000; id++) {
+                        if (store.insert(new Product(String.valueOf(id), "Shirt", Category.SHIRT, 5, now, now))) {
+                            successes.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1000, successes.get());
+        assertEquals(1000, store.snapshot().size());
+    }
+
+    @Test
+    void concurrentModificationsNeverLoseOrDuplicateProduct() throws Exception {
+        store.insert(new Product("1", "Shirt", Category.SHIRT, 1, now, now));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    for (int n = 0; n < 500; n++) {
+                        store.replace("1", product -> new Product(product.id(), product.name(), product.category(),
+                                product.rating() % 10 + 1, product.creationDate(), now));
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, store.snapshot().size());
+        assertEquals((threads * 500) % 10 + 1, store.get("1").orElseThrow().rating());
+        assertEquals(threads * 500 + 1, store.getVersioned("1").orElseThrow().version());
+    }
+
+    @Test
+    void publishesEventsInCommitOrder() {
+        ProductEventLog events = new ProductEventLog(16);
+        store.publishTo(events);
+        store.insert(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+        store.insertAll(List.of(new Product("2", "Jeans", Category.JEANS, 5, now, now)));
+        store.replace("1", product -> new Product("1", "New Shirt", Category.SHIRT, 9, now, now));
+
+        List<ProductEvent> all = events.readAfter(0, 10).orElseThrow();
+        assertEquals(List.of(1L, 2L, 3L), all.stream().map(ProductEvent::sequence).toList());
+        assertEquals(List.of(ProductEvent.Type.ADDED, ProductEvent.Type.ADDED, ProductEvent.Type.MODIFIED),
+                all.stream().map(ProductEvent::type).toList());
+        assertEquals(2, all.get(2).version());
+        assertEquals("New Shirt", all.get(2).product().name());
+        assertEquals(List.of(3L), events.readAfter(2, 10).orElseThrow().stream().map(ProductEvent::sequence).toList());
+        assertTrue(events.readAfter(3, 10).orElseThrow().isEmpty());
+        assertTrue(events.readAfter(4, 10).isEmpty());
+    }
+
+    @Test
+    void eventLogReportsOverwrittenEvents() {
+        ProductEventLog events = new ProductEventLog(4);
+        store.publishTo(events);
+        for (int i = 0; i < 6; i++) {
+            store.insert(new Product(String.valueOf(i), "Shirt", Category.SHIRT, 5, now, now));
+        }
+
+        assertTrue(events.readAfter(1, 10).isEmpty());
+        assertEquals(List.of(3L, 4L, 5L, 6L), events.readAfter(2, 10).orElseThrow().stream()
+                .map(ProductEvent::sequence).toList());
+        assertEquals(2, events.readAfter(2, 2).orElseThrow().size());
+    }
+
+    @Test
+    void awaitingReaderIsWokenByWrite() throws Exception {
+        ProductEventLog events = new ProductEventLog(16);
+        store.publishTo(events);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> woken = executor.submit(() -> events.awaitAfter(0, 10, TimeUnit.SECONDS));
+            store.insert(new Product("1", "Shirt", Category.SHIRT, 5, now, now));
+            assertTrue(woken.get(5, TimeUnit.SECONDS));
+            assertFalse(events.awaitAfter(1, 10, TimeUnit.MILLISECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
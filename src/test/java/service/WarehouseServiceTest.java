@@ -2,12 +2,23 @@ package service;
 
 import org.example.entities.Category;
 import org.example.entities.Product;
+import org.example.entities.ProductUpdate;
+import org.example.service.BatchResult;
+import org.example.service.DailyCount;
+import org.example.service.ProductQuery;
+import org.example.service.QueryResult;
+import org.example.service.RatingCount;
+import org.example.service.StorageMode;
+import org.example.service.VersionedProduct;
 import org.example.service.WarehouseService;
+import org.example.service.WritePipeline;
+import org.example.service.WritePipelineConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -52,6 +63,26 @@ class WarehouseServiceTest {
         assertEquals(TOTAL_PRODUCTS, warehouseService.getAllProducts().size());
     }
 
+    @Test
+    void testAddProductsReportsPerItemErrorsWithoutAbortingBatch() {
+        BatchResult result = warehouseService.addProducts(List.of(
+                new Product("100", "Shirt", Category.SHIRT, 8, now, now),
+                new Product("1", "Duplicate", Category.SHIRT, 8, now, now),
+                new Product("101", "", Category.SHIRT, 11, now, now),
+                new Product("102", "Jeans", Category.JEANS, 3, now, now),
+                new Product("100", "Same batch duplicate", Category.SHIRT, 8, now, now)
+        ));
+
+        assertEquals(2, result.accepted());
+        assertEquals(List.of(1, 2, 4), result.errors().stream().map(BatchResult.BatchError::index).toList());
+        assertEquals("Product already exists", result.errors().get(0).message());
+        assertTrue(result.errors().get(1).message().contains("name: Name must not be blank"));
+        assertTrue(result.errors().get(1).message().contains("rating: Rating must be between 1 and 10"));
+        assertEquals(TOTAL_PRODUCTS + 2, warehouseService.getAllProducts().size());
+        assertEquals("Shirt", warehouseService.getProductById("100").orElseThrow().name());
+        assertEquals(2, warehouseService.getNumberProductsByCategory(Category.SHIRT));
+    }
+
     @Test
     void testModifyProduct() {
         warehouseService.modifyProduct("1", "New Shirt", Category.SHIRT, 9);
@@ -87,6 +118,60 @@ class WarehouseServiceTest {
         );
     }
 
+    @Test
+    void testModifyProductMovesProductBetweenCategories() {
+        warehouseService.modifyProduct("1", "Blue Jeans", Category.JEANS, 10);
+        assertEquals(0, warehouseService.getNumberProductsByCategory(Category.SHIRT));
+        assertEquals(5, warehouseService.getNumberProductsByCategory(Category.JEANS));
+        assertEquals(
+                List.of("aaa", "Blue Jeans", "jeans", "Other Jeans", "ZZZ"),
+                warehouseService.getProductsByCategory(Category.JEANS).stream().map(Product::name).toList()
+        );
+        assertEquals(2, warehouseService.getMaxRatedProductsLastMonth().size());
+    }
+
+    @Test
+    void testSearchRanksExactAndLeadingMatchesFirst() {
+        warehouseService.addProduct(new Product("7", "Blue Jeans Jacket", Category.HOODIE, 4, now, now));
+        warehouseService.addProduct(new Product("8", "Jeansy", Category.JEANS, 9, now, now));
+
+        assertEquals(List.of("3", "7", "4", "8"), ids(warehouseService.searchProducts("JEANS", null, 0, 10)));
+        assertEquals(List.of("3", "8", "7", "4"), ids(warehouseService.searchProducts("jea", null, 0, 10)));
+        assertEquals(List.of("7"), ids(warehouseService.searchProducts("jack jea", null, 0, 10)));
+        assertEquals(List.of("3"), ids(warehouseService.searchProducts("jeans", null, 0, 1)));
+        assertTrue(warehouseService.searchProducts("?!", null, 0, 10).isEmpty());
+    }
+
+    @Test
+    void testSearchFiltersByCategoryAndRating() {
+        warehouseService.addProduct(new Product("7", "Blue Jeans Jacket", Category.HOODIE, 4, now, now));
+
+        assertEquals(List.of("7"), ids(warehouseService.searchProducts("jeans", Category.HOODIE, 0, 10)));
+        assertEquals(List.of("3", "4"), ids(warehouseService.searchProducts("jeans", null, 10, 10)));
+    }
+
+    @Test
+    void testSearchFollowsModifications() {
+        warehouseService.modifyProduct("1", "Striped Tee", Category.SHIRT, 8);
+
+        assertTrue(warehouseService.searchProducts("shirt", null, 0, 10).isEmpty());
+        assertEquals(List.of("1"), ids(warehouseService.searchProducts("stri", null, 0, 10)));
+    }
+
+    private static List<String> ids(List<Product> products) {
+        return products.stream().map(Product::id).toList();
+    }
+
+    @Test
+    void testGetProductsCreatedAfterIsOrderedByCreationDate() {
+        List<LocalDate> dates = warehouseService.getProductsCreatedAfter(now.minusDays(40))
+                .stream()
+                .map(Product::creationDate)
+                .toList();
+        assertEquals(TOTAL_PRODUCTS, dates.size());
+        assertEquals(dates.stream().sorted().toList(), dates);
+    }
+
     @Test
     void testGetProductsCreatedAfter() {
         assertEquals(4, warehouseService.getProductsCreatedAfter(LocalDate.now().minusDays(3)).size());
@@ -116,6 +201,405 @@ class WarehouseServiceTest {
         assertEquals(1, map.get('H'));
     }
 
+    @Test
+    void testAggregatesMatchFullScanAfterRandomWrites() {
+        Random random = new Random(42);
+        Category[] allCategories = Category.values();
+        String[] names = {"Shirt", "hoodie", "Jeans", "shorts", "Ärmel", "Øre", "Ωmega", "Zip"};
+        for (int i = 0; i < 500; i++) {
+            String name = names[random.nextInt(names.length)];
+            Category category = allCategories[random.nextInt(allCategories.length)];
+            if (random.nextInt(3) == 0) {
+                String id = String.valueOf(random.nextInt(100) + 1);
+                warehouseService.modifyProduct(id, name, category, random.nextInt(10) + 1);
+            } else if (warehouseService.getProductById(String.valueOf(i + 7)).isEmpty()) {
+                warehouseService.addProduct(new Product(String.valueOf(i + 7), name, category, 5, now, now));
+            }
+            assertAggregatesMatchFullScan();
+        }
+    }
+
+    private void assertAggregatesMatchFullScan() {
+        List<Product> all = warehouseService.getAllProducts();
+        assertEquals(
+                all.stream().map(Product::category).distinct().sorted().toList(),
+                warehouseService.getNonEmptyCategories()
+        );
+        assertEquals(
+                all.stream().collect(Collectors.groupingBy(product -> product.name().charAt(0), Collectors.counting())),
+                warehouseService.getProductStartingLetterMap()
+        );
+        for (Category category : Category.values()) {
+            assertEquals(
+                    all.stream().filter(product -> product.category() == category).count(),
+                    warehouseService.getNumberProductsByCategory(category)
+            );
+        }
+    }
+
+    @Test
+    void testQueryMatchesFullScanForRandomQueries() {
+        Random random = new Random(7);
+        Category[] allCategories = Category.values();
+        String[] names = {"Shirt", "shirt dress", "Jeans", "Short", "Zip Hoodie", "zebra"};
+        for (int i = 7; i < 400; i++) {
+            LocalDate created = now.minusDays(random.nextInt(60));
+            LocalDate modified = created.plusDays(random.nextInt(10));
+            warehouseService.addProduct(new Product(String.valueOf(i), names[random.nextInt(names.length)],
+                    allCategories[random.nextInt(allCategories.length)], random.nextInt(10) + 1,
+                    created, modified.isAfter(now) ? now : modified));
+        }
+        List<Product> all = warehouseService.getAllProducts();
+        String[] prefixes = {null, "sh", "Z", "jeans", "x"};
+        for (int i = 0; i < 300; i++) {
+            Integer minRating = random.nextBoolean() ? random.nextInt(10) + 1 : null;
+            LocalDate createdFrom = random.nextBoolean() ? now.minusDays(random.nextInt(60)) : null;
+            ProductQuery query = new ProductQuery(
+                    random.nextBoolean() ? allCategories[random.nextInt(allCategories.length)] : null,
+                    minRating,
+                    random.nextBoolean() ? random.nextInt(10) + 1 : null,
+                    createdFrom,
+                    random.nextBoolean() ? now.minusDays(random.nextInt(30)) : null,
+                    random.nextInt(4) == 0 ? now.minusDays(random.nextInt(30)) : null,
+                    null,
+                    prefixes[random.nextInt(prefixes.length)],
+                    ProductQuery.Sort.values()[random.nextInt(ProductQuery.Sort.values().length)],
+                    random.nextBoolean(),
+                    random.nextInt(20) + 1);
+
+            List<Product> expected = all.stream()
+                    .filter(product -> (query.category() == null || product.category() == query.category())
+                            && (query.minRating() == null || product.rating() >= query.minRating())
+                            && (query.maxRating() == null || product.rating() <= query.maxRating())
+                            && (query.createdFrom() == null || !product.creationDate().isBefore(query.createdFrom()))
+                            && (query.createdTo() == null || !product.creationDate().isAfter(query.createdTo()))
+                            && (query.modifiedFrom() == null || !product.lastModifiedDate().isBefore(query.modifiedFrom()))
+                            && (query.namePrefix() == null
+                            || product.name().toLowerCase().startsWith(query.namePrefix().toLowerCase())))
+                    .sorted(sortOrder(query))
+                    .limit(query.limit())
+                    .toList();
+            assertEquals(expected, warehouseService.query(query).products(), query::toString);
+        }
+    }
+
+    @Test
+    void testColumnarStorageMatchesObjectStorage() {
+        WarehouseService columnar = new WarehouseService(StorageMode.COLUMNAR);
+        products.forEach(columnar::addProduct);
+        Random random = new Random(11);
+        Category[] allCategories = Category.values();
+        String[] names = {"Shirt", "shirt dress", "Jeans", "Short", "Zip Hoodie", "zebra"};
+        for (int i = 0; i < 3000; i++) {
+            String name = names[random.nextInt(names.length)];
+            Category category = allCategories[random.nextInt(allCategories.length)];
+            int rating = random.nextInt(10) + 1;
+            if (random.nextInt(3) == 0) {
+                String id = String.valueOf(random.nextInt(200) + 1);
+                if (warehouseService.getProductById(id).isPresent()) {
+                    warehouseService.modifyProduct(id, name, category, rating);
+                    columnar.modifyProduct(id, name, category, rating);
+                }
+            } else {
+                LocalDate created = now.minusDays(random.nextInt(60));
+                Product product = new Product(String.valueOf(i + 7), name, category, rating, created, created);
+                warehouseService.addProduct(product);
+                columnar.addProduct(product);
+            }
+        }
+
+        Comparator<Product> byDate = Comparator.comparing(Product::creationDate).thenComparing(Product::id);
+        assertEquals(warehouseService.getAllProducts(), columnar.getAllProducts());
+        assertEquals(warehouseService.getProductsPage("3", 50), columnar.getProductsPage("3", 50));
+        assertEquals(warehouseService.getModifiedProducts(), columnar.getModifiedProducts());
+        assertEquals(warehouseService.getProductStartingLetterMap(), columnar.getProductStartingLetterMap());
+        assertEquals(warehouseService.getMaxRatedProductsLastMonth().stream().sorted(byDate).toList(),
+                columnar.getMaxRatedProductsLastMonth().stream().sorted(byDate).toList());
+        LocalDate since = now.minusDays(20);
+        assertEquals(warehouseService.getProductsCreatedAfter(since).stream().sorted(byDate).toList(),
+                columnar.getProductsCreatedAfter(since).stream().sorted(byDate).toList());
+        for (Category category : allCategories) {
+            assertEquals(warehouseService.getProductsByCategory(category), columnar.getProductsByCategory(category));
+            assertEquals(warehouseService.getNumberProductsByCategory(category),
+                    columnar.getNumberProductsByCategory(category));
+        }
+        for (String query : List.of("shirt", "sh", "zip hood", "z", "nothing")) {
+            assertEquals(warehouseService.searchProducts(query, null, 0, 10), columnar.searchProducts(query, null, 0, 10));
+            assertEquals(warehouseService.searchProducts(query, Category.JEANS, 5, 10),
+                    columnar.searchProducts(query, Category.JEANS, 5, 10));
+        }
+        ProductQuery query = new ProductQuery(null, 4, 9, now.minusDays(40), null, null, null, "s",
+                ProductQuery.Sort.RATING, true, 15);
+        assertEquals(warehouseService.query(query).products(), columnar.query(query).products());
+    }
+
+    @Test
+    void testColumnarStorageRejectsUnstorableRatingBeforeWriting() {
+        WarehouseService columnar = new WarehouseService(StorageMode.COLUMNAR);
+        products.forEach(columnar::addProduct);
+        long sequence = columnar.getEvents().lastSequence();
+
+        assertThrows(IllegalArgumentException.class, () -> columnar.modifyProduct("1", "Shirt", Category.SHIRT, 200));
+        assertThrows(IllegalArgumentException.class,
+                () -> columnar.addProduct(new Product("7", "Shirt", Category.SHIRT, 200, now, now)));
+
+        assertEquals(products.get(0), columnar.getProductById("1").orElseThrow());
+        assertTrue(columnar.getProductById("7").isEmpty());
+        assertEquals(sequence, columnar.getEvents().lastSequence());
+        assertEquals(products.get(0), columnar.getTopRated(null, null, Category.SHIRT, 1).get(0));
+    }
+
+    @Test
+    void testListingsNeverShowPartOfAWrite() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writes = writer.submit(() -> {
+                for (int batch = 0; batch < 200; batch++) {
+                    List<Product> added = new ArrayList<>();
+                    for (int i = 0; i < 10; i++) {
+                        added.add(new Product(String.format("w%04d", batch * 10 + i), "Batch", Category.SHIRT, 5, now, now));
+                    }
+                    warehouseService.addProducts(added);
+                }
+            });
+            while (!writes.isDone()) {
+                List<String> written = warehouseService.getAllProducts().stream()
+                        .map(Product::id).filter(id -> id.startsWith("w")).toList();
+                // batches are added in id order, so a consistent listing holds whole batches and no gaps
+                assertEquals(0, written.size() % 10, () -> "part of a batch is visible: " + written.size());
+                for (int i = 0; i < written.size(); i++) {
+                    assertEquals(String.format("w%04d", i), written.get(i));
+                }
+            }
+            writes.get();
+        } finally {
+            writer.shutdownNow();
+        }
+        assertEquals(TOTAL_PRODUCTS + 2000, warehouseService.getAllProducts().size());
+    }
+
+    @Test
+    void testWritePipelineCoalescesModificationsOfTheSameId() throws Exception {
+        WritePipeline pipeline = new WritePipeline(warehouseService, new WritePipelineConfig(true, 10_000, 256, 2_000));
+        String[] hot = {"1", "2", "3"};
+        List<CompletableFuture<Optional<VersionedProduct>>> results = new CopyOnWriteArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int thread = 0; thread < 4; thread++) {
+                int writer = thread;
+                executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        results.add(pipeline.modify(hot[i % hot.length],
+                                new ProductUpdate("Writer " + writer, Category.HOODIE, i % 10 + 1)));
+                    }
+                });
+            }
+        }
+        CompletableFuture<Optional<VersionedProduct>> missing =
+                pipeline.modify("missing", new ProductUpdate("Nobody", Category.JEANS, 1));
+
+        long newestVersion = 0;
+        for (CompletableFuture<Optional<VersionedProduct>> result : results) {
+            VersionedProduct modified = result.get(5, TimeUnit.SECONDS).orElseThrow();
+            // every caller sees a state at least as new as its own modification
+            assertEquals(Category.HOODIE, modified.product().category());
+            newestVersion = Math.max(newestVersion, modified.version());
+        }
+        assertTrue(missing.get(5, TimeUnit.SECONDS).isEmpty());
+        WritePipeline.Stats stats = pipeline.stats();
+        assertEquals(2001, stats.submitted());
+        assertTrue(stats.applied() < 2000, "modifications of the same id should coalesce: " + stats);
+        long versions = 0;
+        for (String id : hot) {
+            versions += warehouseService.getVersionedProduct(id).orElseThrow().version() - 1;
+        }
+        assertEquals(stats.applied(), versions);
+        assertTrue(newestVersion <= stats.batches() + 1);
+
+        pipeline.close();
+        assertThrows(ExecutionException.class,
+                () -> pipeline.modify("1", new ProductUpdate("Late", Category.JEANS, 1)).get(1, TimeUnit.SECONDS));
+        WritePipeline disabled = new WritePipeline(warehouseService, new WritePipelineConfig(false, 1, 1, 0));
+        assertTrue(disabled.modify("1", new ProductUpdate("Late", Category.JEANS, 1)).isCompletedExceptionally());
+    }
+
+    @Test
+    void testWritePipelineAppliesCollectedModificationsOnClose() throws Exception {
+        // a linger far longer than the test, so close() arrives while the applier still holds the batch
+        WritePipeline pipeline = new WritePipeline(warehouseService, new WritePipelineConfig(true, 100, 100, 5_000_000));
+        CompletableFuture<Optional<VersionedProduct>> first = pipeline.modify("1", new ProductUpdate("First", Category.SHIRT, 3));
+        CompletableFuture<Optional<VersionedProduct>> second = pipeline.modify("2", new ProductUpdate("Second", Category.SHIRT, 4));
+        pipeline.close();
+
+        assertEquals("First", first.get(1, TimeUnit.SECONDS).orElseThrow().product().name());
+        assertEquals("Second", second.get(1, TimeUnit.SECONDS).orElseThrow().product().name());
+        assertTrue(pipeline.modify(null, new ProductUpdate("Nobody", Category.JEANS, 1)).get().isEmpty());
+    }
+
+    @Test
+    void testWritePipelineFailsOnlyTheModificationsThatFail() throws Exception {
+        for (WarehouseService service : List.of(warehouseService, new WarehouseService(StorageMode.COLUMNAR))) {
+            if (service != warehouseService) {
+                products.forEach(service::addProduct);
+            }
+            // fails partway through the batch, after the ids ahead of "2" were already written
+            service.replicateTo(product -> {
+                if (product.name().equals("Bad")) {
+                    throw new IllegalStateException("cannot modify " + product.id());
+                }
+            });
+            long sequence = service.getEvents().lastSequence();
+            WritePipeline pipeline = new WritePipeline(service, new WritePipelineConfig(true, 100, 100, 100_000));
+            try {
+                Map<String, CompletableFuture<Optional<VersionedProduct>>> results = new HashMap<>();
+                for (Product product : products) {
+                    String name = product.id().equals("2") ? "Bad" : "Fine";
+                    results.put(product.id(), pipeline.modify(product.id(), new ProductUpdate(name, Category.SHIRT, 4)));
+                }
+
+                for (Product product : products) {
+                    if (product.id().equals("2")) {
+                        ExecutionException failure = assertThrows(ExecutionException.class,
+                                () -> results.get("2").get(5, TimeUnit.SECONDS));
+                        assertInstanceOf(IllegalStateException.class, failure.getCause());
+                        assertEquals(new VersionedProduct(product, 1), service.getVersionedProduct("2").orElseThrow());
+                    } else {
+                        VersionedProduct modified = results.get(product.id()).get(5, TimeUnit.SECONDS).orElseThrow();
+                        assertEquals("Fine", modified.product().name());
+                        // written exactly once, not again by a retry
+                        assertEquals(2, modified.version());
+                        assertEquals(modified, service.getVersionedProduct(product.id()).orElseThrow());
+                    }
+                }
+                assertEquals(sequence + products.size() - 1, service.getEvents().lastSequence());
+                assertEquals(1, pipeline.stats().batches());
+            } finally {
+                pipeline.close();
+            }
+        }
+    }
+
+    @Test
+    void testParallelScansMatchSequentialResults() throws Exception {
+        WarehouseService columnar = new WarehouseService(StorageMode.COLUMNAR);
+        products.forEach(columnar::addProduct);
+        List<Product> bulk = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            LocalDate created = now.minusDays(i % 90 + 1);
+            bulk.add(new Product(String.format("b%05d", i), "Bulk " + i % 7, Category.values()[i % 4], i % 10 + 1,
+                    created, i % 3 == 0 ? created.plusDays(1) : created));
+        }
+        warehouseService.addProducts(bulk);
+        columnar.addProducts(bulk);
+        List<Product> all = warehouseService.getAllProducts();
+        ProductQuery query = new ProductQuery(Category.JEANS, 3, 8, now.minusDays(60), null, null, null, "bulk",
+                ProductQuery.Sort.CREATED, true, 50);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Product> modified = all.stream()
+                    .filter(product -> !product.creationDate().equals(product.lastModifiedDate()))
+                    .toList();
+            assertEquals(modified, pool.submit(() -> warehouseService.getModifiedProducts()).get());
+            assertEquals(modified, pool.submit(() -> columnar.getModifiedProducts()).get());
+            assertEquals(warehouseService.query(query).products(), pool.submit(() -> columnar.query(query)).get().products());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testRollupsMatchFullScanAfterRandomWrites() {
+        Random random = new Random(3);
+        Category[] allCategories = Category.values();
+        for (int i = 7; i < 400; i++) {
+            LocalDate created = now.minusDays(random.nextInt(30));
+            warehouseService.addProduct(new Product(String.valueOf(i), "Item", allCategories[random.nextInt(allCategories.length)],
+                    random.nextInt(10) + 1, created, created));
+            if (random.nextInt(4) == 0) {
+                String id = String.valueOf(random.nextInt(i - 6) + 7);
+                warehouseService.modifyProduct(id, "Item", allCategories[random.nextInt(allCategories.length)],
+                        random.nextInt(10) + 1);
+            }
+        }
+        List<Product> all = warehouseService.getAllProducts();
+        for (int i = 0; i < 50; i++) {
+            LocalDate from = now.minusDays(random.nextInt(35));
+            LocalDate to = from.plusDays(random.nextInt(10));
+            Category category = random.nextBoolean() ? allCategories[random.nextInt(allCategories.length)] : null;
+            List<Product> window = all.stream()
+                    .filter(product -> !product.creationDate().isBefore(from) && !product.creationDate().isAfter(to)
+                            && (category == null || product.category() == category))
+                    .toList();
+
+            assertEquals(window.stream()
+                            .sorted(Comparator.comparingInt(Product::rating).reversed()
+                                    .thenComparing(Product::creationDate, Comparator.reverseOrder())
+                                    .thenComparing(Product::id))
+                            .limit(15)
+                            .toList(),
+                    warehouseService.getTopRated(from, to, category, 15));
+            for (RatingCount count : warehouseService.getRatingHistogram(from, to, category)) {
+                assertEquals(window.stream().filter(product -> product.rating() == count.rating()).count(), count.count());
+            }
+            assertEquals(window.stream()
+                            .collect(Collectors.groupingBy(Product::creationDate, TreeMap::new, Collectors.counting()))
+                            .entrySet().stream()
+                            .map(entry -> new DailyCount(entry.getKey(), entry.getValue().intValue()))
+                            .toList(),
+                    warehouseService.getCreatedPerDay(from, to, category));
+        }
+    }
+
+    @Test
+    void testRollupsCountRatingsOutsideTheScale() {
+        warehouseService.modifyProduct("1", "Shirt", Category.SHIRT, 11);
+        warehouseService.addProduct(new Product("7", "Shirt", Category.SHIRT, 12, now.minusDays(2), now));
+
+        assertEquals(11, warehouseService.getProductById("1").orElseThrow().rating());
+        assertEquals(12, warehouseService.getProductById("7").orElseThrow().rating());
+        assertEquals(List.of(new DailyCount(now.minusDays(2), 2)),
+                warehouseService.getCreatedPerDay(now.minusDays(2), now.minusDays(2), Category.SHIRT));
+        assertTrue(warehouseService.getRatingHistogram(now.minusDays(2), now.minusDays(2), Category.SHIRT).stream()
+                .allMatch(count -> count.count() == 0));
+
+        warehouseService.modifyProduct("1", "Shirt", Category.SHIRT, 8);
+        assertEquals(List.of("1"), warehouseService.getTopRated(now.minusDays(2), now.minusDays(2), Category.SHIRT, 5)
+                .stream().map(Product::id).toList());
+    }
+
+    private static Comparator<Product> sortOrder(ProductQuery query) {
+        Comparator<Product> order = switch (query.sort()) {
+            case ID -> Comparator.comparing(Product::id);
+            case NAME -> Comparator.comparing(Product::name, String.CASE_INSENSITIVE_ORDER).thenComparing(Product::id);
+            case RATING -> Comparator.comparingInt(Product::rating).thenComparing(Product::id);
+            case CREATED -> Comparator.comparing(Product::creationDate).thenComparing(Product::id);
+            case MODIFIED -> Comparator.comparing(Product::lastModifiedDate).thenComparing(Product::id);
+        };
+        return query.descending() ? order.reversed() : order;
+    }
+
+    @Test
+    void testQueryPlannerUsesMostSelectiveIndex() {
+        for (int i = 7; i < 200; i++) {
+            warehouseService.addProduct(new Product(String.valueOf(i), "Bulk", Category.SHORTS, 3, now, now));
+        }
+
+        QueryResult byCategory = warehouseService.query(new ProductQuery(Category.HOODIE, null, null, null, null,
+                null, null, null, ProductQuery.Sort.RATING, true, 10));
+        assertEquals(List.of("2"), byCategory.products().stream().map(Product::id).toList());
+        assertTrue(byCategory.plan().startsWith("category"), byCategory.plan());
+
+        QueryResult byRating = warehouseService.query(new ProductQuery(Category.SHORTS, 10, null, null, null,
+                null, null, null, ProductQuery.Sort.ID, false, 10));
+        assertTrue(byRating.products().isEmpty());
+        assertTrue(byRating.plan().startsWith("rating"), byRating.plan());
+
+        QueryResult ordered = warehouseService.query(new ProductQuery(null, null, null, null, null,
+                null, null, null, ProductQuery.Sort.ID, false, 3));
+        assertEquals(List.of("1", "10", "100"), ordered.products().stream().map(Product::id).toList());
+        assertTrue(ordered.plan().endsWith("ordered examined=3"), ordered.plan());
+    }
+
     @Test
     void testGetMaxRatedProductsLastMonth() {
         List<Product> products = warehouseService.getMaxRatedProductsLastMonth();
@@ -0,0 +1,48 @@
+package validation;
+
+import org.example.entities.Category;
+import org.example.entities.Product;
+import org.example.validation.ProductValidator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductValidatorTest {
+    private final ProductValidator validator = new ProductValidator();
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void fastPathAgreesWithFullValidator() {
+        List<String> strings = Arrays.asList(null, "", " ", "\t\n", "\u0000", " ", "a", " a ");
+        List<LocalDate> dates = Arrays.asList(null, today.minusYears(1), today, today.plusDays(1));
+        List<Product> products = new ArrayList<>();
+        for (String text : strings) {
+            products.add(new Product(text, "Shirt", Category.SHIRT, 5, today, today));
+            products.add(new Product("1", text, Category.SHIRT, 5, today, today));
+        }
+        for (int rating = -1; rating <= 11; rating++) {
+            products.add(new Product("1", "Shirt", Category.SHIRT, rating, today, today));
+        }
+        for (LocalDate date : dates) {
+            products.add(new Product("1", "Shirt", Category.SHIRT, 5, date, today));
+            products.add(new Product("1", "Shirt", Category.SHIRT, 5, today, date));
+        }
+        products.add(new Product("1", "Shirt", null, 5, today, today));
+
+        for (Product product : products) {
+            assertEquals(validator.violations(product).isEmpty(), validator.isValid(product), product::toString);
+        }
+    }
+
+    @Test
+    void reportsViolationsOnlyForInvalidProducts() {
+        assertNull(validator.validate(new Product("1", "Shirt", Category.SHIRT, 5, today, today)));
+        assertEquals("name: Name must not be blank, rating: Rating must be between 1 and 10",
+                validator.validate(new Product("1", " ", Category.SHIRT, 0, today, today)));
+    }
+}